@@ -2,91 +2,429 @@ package pages;
 
 import org.openqa.selenium.By;
 import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.PageLoadStrategy;
+import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.interactions.Actions;
+import org.openqa.selenium.support.ui.ExpectedCondition;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
+import utils.ActionMetrics;
+import utils.AdaptiveWait;
+import utils.BrowserProfile;
+import utils.Config;
+import utils.LocatorCache;
+import utils.Log;
+import utils.NavigationTiming;
+import utils.OverlaySuppressor;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /** Base Page Object containing common functionality for all pages */
 public class BasePage {
+    private static final boolean EAGER_PAGE_LOAD =
+            BrowserProfile.current().getPageLoadStrategy() == PageLoadStrategy.EAGER;
+
+    /**
+     * Installs the wait-engine hooks in the current document once: a MutationObserver that records the
+     * time of the last DOM change, counters for in-flight XHR/fetch requests and a flag set on unload.
+     */
+    private static final String INSTALL_WAIT_ENGINE =
+            "if (!window.__waitEngine) {" +
+            "  var s = window.__waitEngine = {inflight: 0, lastMutation: Date.now(), unloading: false};" +
+            "  new MutationObserver(function() { s.lastMutation = Date.now(); })" +
+            "    .observe(document.documentElement, {childList: true, subtree: true, attributes: true, characterData: true});" +
+            "  window.addEventListener('beforeunload', function() { s.unloading = true; });" +
+            "  var send = XMLHttpRequest.prototype.send;" +
+            "  XMLHttpRequest.prototype.send = function() {" +
+            "    s.inflight++; var done = false;" +
+            "    this.addEventListener('loadend', function() { if (!done) { done = true; s.inflight--; } });" +
+            "    return send.apply(this, arguments);" +
+            "  };" +
+            "  if (window.fetch) {" +
+            "    var fetch = window.fetch;" +
+            "    window.fetch = function() {" +
+            "      s.inflight++;" +
+            "      return fetch.apply(this, arguments).finally(function() { s.inflight--; });" +
+            "    };" +
+            "  }" +
+            "}";
+
+    private static final String READY_STATE_SCRIPT = INSTALL_WAIT_ENGINE + "return document.readyState;";
+
+    /** arguments[0]: quiet period in ms, arguments[1]: also require no in-flight requests */
+    private static final String SETTLED_SCRIPT = INSTALL_WAIT_ENGINE +
+            "var s = window.__waitEngine;" +
+            "if (s.unloading || document.readyState === 'loading') { return false; }" +
+            "if (arguments[1] && s.inflight > 0) { return false; }" +
+            "return Date.now() - s.lastMutation >= arguments[0];";
+
+    /** True once the element's box has not moved between two polls and it has no running animations */
+    private static final String STABLE_SCRIPT =
+            "var el = arguments[0]; var r = el.getBoundingClientRect();" +
+            "var box = [r.x, r.y, r.width, r.height].join(',');" +
+            "var stable = el.__lastBox === box;" +
+            "el.__lastBox = box;" +
+            "var animations = el.getAnimations ? el.getAnimations({subtree: true}) : [];" +
+            "return stable && animations.every(function(a) { return a.playState !== 'running'; });";
+
+    /** JavaScript function {@code visible(el)} approximating WebElement.isDisplayed() for in-page scripts */
+    protected static final String JS_VISIBLE_FUNCTION =
+            "function visible(el) {" +
+            "  if (!el) { return false; }" +
+            "  if (el.checkVisibility) {" +
+            "    if (!el.checkVisibility({opacityProperty: true, visibilityProperty: true})) { return false; }" +
+            "  } else {" +
+            "    for (var n = el; n && n.nodeType === 1; n = n.parentElement) {" +
+            "      var st = getComputedStyle(n);" +
+            "      if (st.display === 'none' || st.opacity === '0') { return false; }" +
+            "    }" +
+            "    var vis = getComputedStyle(el).visibility;" +
+            "    if (vis === 'hidden' || vis === 'collapse') { return false; }" +
+            "  }" +
+            "  var r = el.getBoundingClientRect();" +
+            "  return r.width > 0 && r.height > 0;" +
+            "}";
+
+    /**
+     * arguments[0]: selector, arguments[1]: optional probe selector inside each match whose visibility and
+     * text are reported instead of the match itself, arguments[2]: attribute names to read
+     */
+    private static final String QUERY_ALL_SCRIPT =
+            "var probe = arguments[1], names = arguments[2] || [];" +
+            JS_VISIBLE_FUNCTION +
+            "return Array.prototype.map.call(document.querySelectorAll(arguments[0]), function(el, i) {" +
+            "  var target = probe ? el.querySelector(probe) : el;" +
+            "  var r = el.getBoundingClientRect();" +
+            "  var attrs = {};" +
+            "  names.forEach(function(name) { attrs[name] = el.getAttribute(name); });" +
+            "  return {index: i, element: el, displayed: visible(target), x: r.x, y: r.y, width: r.width," +
+            "          height: r.height, text: target ? (target.innerText || '').trim() : '', attributes: attrs};" +
+            "});";
+
+    /** arguments[0]: card selector, arguments[1]: optional visibility probe, arguments[2]: price selector */
+    private static final String PRODUCT_CARDS_SCRIPT = JS_VISIBLE_FUNCTION +
+            "var probe = arguments[1], priceSelector = arguments[2];" +
+            "function text(el) { return el ? (el.innerText || '').trim() : null; }" +
+            "return Array.prototype.map.call(document.querySelectorAll(arguments[0]), function(card, i) {" +
+            "  return {index: i, element: card, displayed: visible(probe ? card.querySelector(probe) : card)," +
+            "          height: card.getBoundingClientRect().height, name: text(card.querySelector('.product-name'))," +
+            "          price: text(card.querySelector(priceSelector))," +
+            "          productId: (card.querySelector('[id^=\"product-price-\"]') || {id: ''}).id.substring(14) || null};" +
+            "});";
+
+    /**
+     * arguments[0]: wait (up to 2 s) for the load event to finish if the document is already complete.
+     * Calls back with navigation timing of the current document and transferred bytes per resource type.
+     */
+    private static final String NAVIGATION_TIMING_SCRIPT =
+            "var waitForLoad = arguments[0], done = arguments[arguments.length - 1], started = Date.now();" +
+            "(function collect() {" +
+            "  var nav = performance.getEntriesByType('navigation')[0];" +
+            "  if (waitForLoad && nav && nav.loadEventEnd === 0 && document.readyState === 'complete'" +
+            "      && Date.now() - started < 2000) { setTimeout(collect, 25); return; }" +
+            "  var resources = {};" +
+            "  performance.getEntriesByType('resource').forEach(function(r) {" +
+            "    var type = resources[r.initiatorType || 'other'] || (resources[r.initiatorType || 'other'] = {count: 0, bytes: 0});" +
+            "    type.count++; type.bytes += r.transferSize || 0;" +
+            "  });" +
+            "  done({url: location.href, ttfb: nav ? nav.responseStart : -1," +
+            "        domContentLoaded: nav && nav.domContentLoadedEventEnd > 0 ? nav.domContentLoadedEventEnd : -1," +
+            "        load: nav && nav.loadEventEnd > 0 ? nav.loadEventEnd : -1," +
+            "        documentBytes: nav ? nav.transferSize : 0, resources: resources});" +
+            "})();";
+
+    private static final Duration SETTLE_POLLING = Duration.ofMillis(50);
+
     protected WebDriver driver;
     protected WebDriverWait wait;
     protected Actions actions;
     protected JavascriptExecutor js;
+    /** Elements found on the current document; shared with every other page object on this driver */
+    protected final ElementCache elements;
 
     public BasePage(WebDriver driver) {
         this.driver = driver;
-        this.wait = new WebDriverWait(driver, Duration.ofSeconds(15));
+        this.elements = ElementCache.of(driver);
+        this.wait = new AdaptiveWait(driver, null, Duration.ofSeconds(15));
         this.actions = new Actions(driver);
         this.js = (JavascriptExecutor) driver;
     }
 
+    /** Runs {@code body} timed as "PageClass.method" in {@link ActionMetrics} and returns its result */
+    protected <T> T timed(String method, Supplier<T> body) {
+        return ActionMetrics.getInstance().time(getClass().getSimpleName() + "." + method, body);
+    }
+
+    /** Runs {@code body} timed as "PageClass.method" in {@link ActionMetrics} */
+    protected void timed(String method, Runnable body) {
+        ActionMetrics.getInstance().time(getClass().getSimpleName() + "." + method, body);
+    }
+
     public void navigateTo(String url) {
-        driver.get(url);
+        timed("navigateTo", () -> {
+            driver.get(url);
+            waitForPageReady();
+        });
+        recordNavigationTiming();
+    }
 
-        // Try to maximize window, ignore if already maximized
+    /**
+     * Attaches the navigation and resource timing of the current document to the running test, where
+     * {@link utils.PerformanceBudget}s are checked. Call after a navigation has reached ready state.
+     */
+    protected void recordNavigationTiming() {
+        if (!Config.isNavigationTimingEnabled()) {
+            return;
+        }
         try {
-            driver.manage().window().maximize();
-        } catch (Exception e) {
-            // Window already maximized or can't change state, ignore
+            Object result = js.executeAsyncScript(NAVIGATION_TIMING_SCRIPT, !EAGER_PAGE_LOAD);
+            if (result instanceof Map) {
+                NavigationTiming.fromScriptResult((Map<?, ?>) result).attachToCurrentTest();
+            }
+        } catch (WebDriverException e) {
+            Log.warn("Could not read navigation timing: " + e.getMessage());
         }
-
-        waitForPageReady();
     }
 
+    /**
+     * Waits for "complete", or just "interactive" when the browser profile uses eager page loads. Every
+     * navigation goes through here, so it also invalidates the {@link ElementHandle}s of the previous page.
+     */
     protected void waitForPageReady() {
-        wait.until(webDriver -> js.executeScript("return document.readyState").equals("complete"));
+        timed("waitForPageReady", () -> {
+            elements.invalidate();
+            String script = withPageHooks(READY_STATE_SCRIPT);
+            waitFor("pageReady", Duration.ofSeconds(15)).until(webDriver -> {
+                Object state = js.executeScript(script);
+                return "complete".equals(state) || (EAGER_PAGE_LOAD && "interactive".equals(state));
+            });
+        });
     }
 
 
-    protected void dismissCookieConsent() {
+    /**
+     * Waits until the DOM has stopped changing and no XHR/fetch requests are in flight. Used after clicks
+     * that may load a new page, so cached elements are invalidated as in {@link #waitForPageReady()}.
+     * Best effort: a page that never settles (carousels, beacons) is used as it is once the wait runs out.
+     */
+    protected void waitForPageSettled() {
+        timed("waitForPageSettled", () -> {
+            elements.invalidate();
+            waitUntilSettled(true);
+        });
+    }
+
+    /** Waits until the DOM has stopped changing, ignoring background requests; best effort like {@link #waitForPageSettled()} */
+    protected void waitForDomQuiet() {
+        timed("waitForDomQuiet", () -> waitUntilSettled(false));
+    }
+
+    /** Waits until the element has stopped moving and finished its transitions */
+    protected WebElement waitForElementStable(WebElement element) {
+        settleWait("elementStable").until(webDriver -> Boolean.TRUE.equals(js.executeScript(STABLE_SCRIPT, element)));
+        return element;
+    }
+
+    private void waitUntilSettled(boolean includeNetwork) {
+        long quietMillis = Config.domQuietMillis();
+        String script = withPageHooks(SETTLED_SCRIPT);
         try {
-            WebDriverWait shortWait = new WebDriverWait(driver, Duration.ofSeconds(5));
-            shortWait.until(ExpectedConditions.presenceOfElementLocated(By.cssSelector(".privacy_prompt")));
+            settleWait(includeNetwork ? "pageSettled" : "domQuiet")
+                    .until(webDriver -> Boolean.TRUE.equals(js.executeScript(script, quietMillis, includeNetwork)));
+        } catch (TimeoutException e) {
+            // Continuously changing page; settling is an optimisation, not a precondition
+            Log.debug(() -> "Page did not settle, continuing: " + driver.getCurrentUrl());
+        }
+    }
 
-            // Click Opt-In radio
-            try {
-                WebElement optIn = shortWait.until(ExpectedConditions.elementToBeClickable(By.id("privacy_pref_optin")));
-                optIn.click();
-            } catch (Exception ignored) {
+    /**
+     * Sessions without DevTools cannot register {@link OverlaySuppressor} for new documents, so it rides along
+     * with the ready/settle checks that run after every navigation anyway; it installs itself only once per document.
+     */
+    private String withPageHooks(String script) {
+        return OverlaySuppressor.isInstalled(driver) ? script : OverlaySuppressor.SCRIPT + script;
+    }
+
+    private WebDriverWait settleWait(String label) {
+        return new AdaptiveWait(driver, getClass().getSimpleName() + "." + label, Duration.ofSeconds(15), SETTLE_POLLING);
+    }
+
+    /**
+     * A wait of its own for one step of a page method, e.g. "dismissCookieConsent.prompt", so its timeout and
+     * polling are learned apart from the page's other waits. {@code defaultTimeout} applies until it has history.
+     */
+    protected WebDriverWait waitFor(String label, Duration defaultTimeout) {
+        return new AdaptiveWait(driver, getClass().getSimpleName() + "." + label, defaultTimeout);
+    }
+
+    /**
+     * Reads visibility, bounding box, text and the given attributes of every element matching the CSS
+     * selector in one script call, so the number of driver commands does not grow with the page.
+     */
+    protected List<ElementSnapshot> queryAll(String cssSelector, String... attributes) {
+        return queryAllWithProbe(cssSelector, null, attributes);
+    }
+
+    /**
+     * Like {@link #queryAll(String, String...)}, but visibility and text are taken from the first element
+     * matching {@code probeSelector} inside each match (e.g. a card's product name).
+     */
+    protected List<ElementSnapshot> queryAllWithProbe(String cssSelector, String probeSelector, String... attributes) {
+        Object result = js.executeScript(QUERY_ALL_SCRIPT, cssSelector, probeSelector, Arrays.asList(attributes));
+
+        List<ElementSnapshot> snapshots = new ArrayList<>();
+        if (!(result instanceof List)) {
+            return snapshots;
+        }
+        for (Object item : (List<?>) result) {
+            Map<?, ?> row = (Map<?, ?>) item;
+            Map<String, String> attributeValues = new HashMap<>();
+            Map<?, ?> rawAttributes = (Map<?, ?>) row.get("attributes");
+            if (rawAttributes != null) {
+                rawAttributes.forEach((name, value) -> attributeValues.put(String.valueOf(name), value == null ? null : String.valueOf(value)));
             }
+            snapshots.add(new ElementSnapshot(
+                    ((Number) row.get("index")).intValue(),
+                    (WebElement) row.get("element"),
+                    Boolean.TRUE.equals(row.get("displayed")),
+                    toDouble(row.get("x")),
+                    toDouble(row.get("y")),
+                    toDouble(row.get("width")),
+                    toDouble(row.get("height")),
+                    String.valueOf(row.get("text")),
+                    attributeValues));
+        }
+        return snapshots;
+    }
 
-            // Click SUBMIT button
+    /**
+     * Reads name and price of every card matching {@code cardSelector} in one script call. Visibility is taken
+     * from the first {@code probeSelector} match inside the card, or from the card itself when it is null.
+     */
+    protected List<ProductCard> extractProductCards(String cardSelector, String probeSelector, String priceSelector) {
+        Object result = js.executeScript(PRODUCT_CARDS_SCRIPT, cardSelector, probeSelector, priceSelector);
+
+        List<ProductCard> cards = new ArrayList<>();
+        if (!(result instanceof List)) {
+            return cards;
+        }
+        for (Object item : (List<?>) result) {
+            Map<?, ?> row = (Map<?, ?>) item;
+            cards.add(new ProductCard(
+                    ((Number) row.get("index")).intValue(),
+                    (WebElement) row.get("element"),
+                    Boolean.TRUE.equals(row.get("displayed")),
+                    toDouble(row.get("height")),
+                    (String) row.get("name"),
+                    (String) row.get("price"),
+                    (String) row.get("productId")));
+        }
+        return cards;
+    }
+
+    /** Handle for a {@link #queryAll} result, re-resolved by its index among the selector's matches */
+    protected ElementHandle handleFor(String cssSelector, ElementSnapshot snapshot) {
+        return elements.handle(By.cssSelector(cssSelector), snapshot.getIndex(), snapshot.getElement());
+    }
+
+    /** Handles for every element matching {@code locator}; the lookup runs once per document */
+    protected List<ElementHandle> findAllHandles(By locator) {
+        return elements.all(locator);
+    }
+
+    private static double toDouble(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : 0.0;
+    }
+
+    /**
+     * Finds an element from a list of fallback locators. The locator that worked last time for {@code key}
+     * (remembered by {@link LocatorCache} across runs) gets a short probe first; only when that fails are the
+     * candidates tried in order with the full wait, the remembered one included, since a slow page can miss
+     * the probe. Returns the first element passing {@code accept}, or the
+     * last element found if none does, or null if nothing was found at all.
+     */
+    protected WebElement findWithFallback(String key, By[] candidates,
+                                          Function<By, ExpectedCondition<WebElement>> condition,
+                                          Predicate<WebElement> accept) {
+        LocatorCache cache = LocatorCache.getInstance();
+        By remembered = cache.lookup(key, candidates);
+        WebElement lastFound = null;
+
+        if (remembered != null) {
             try {
-                WebElement submitDiv = shortWait.until(ExpectedConditions.elementToBeClickable(By.id("consent_prompt_submit")));
-                js.executeScript("arguments[0].click();", submitDiv);
-            } catch (Exception e) {
-                try {
-                    WebElement submitDiv = driver.findElement(By.cssSelector("#consent_prompt_submit"));
-                    submitDiv.click();
-                } catch (Exception ignored) {
-                    js.executeScript("var p=document.querySelector('.privacy_prompt'); if(p){p.style.display='none';}");
+                WebElement element = waitFor("probe." + key, Config.locatorProbeTimeout())
+                        .until(condition.apply(remembered));
+                lastFound = element;
+                if (accept.test(element)) {
+                    cache.recordHit(key);
+                    return element;
                 }
+            } catch (Exception ignored) {
             }
+            cache.recordMiss(key);
+        }
 
+        for (int i = 0; i < candidates.length; i++) {
             try {
-                new WebDriverWait(driver, Duration.ofMillis(500))
-                    .until(ExpectedConditions.invisibilityOfElementLocated(By.cssSelector(".privacy_prompt")));
-            } catch (Exception ignored) {
+                WebElement element = wait.until(condition.apply(candidates[i]));
+                lastFound = element;
+                if (accept.test(element)) {
+                    cache.recordResolved(key, i, candidates[i]);
+                    return element;
+                }
+            } catch (Exception e) {
+                continue;
             }
-        } catch (Exception e) {
-            System.out.println("Cookie consent not shown or already handled.");
         }
+        return lastFound;
     }
 
-    /** removes consent/cookie overlays if still presen */
-    protected void removeOverlays() {
-        try {
-            String jsScript = "var els=document.querySelectorAll('[class*=\"consent\"],[class*=\"cookie\"],[class*=\"overlay\"],[class*=\"modal\"],[id*=\"notice\"]'); " +
-                    "els.forEach(e=>e.remove()); " +
-                    "var notice=document.getElementById('notice-container'); if(notice) notice.remove(); " +
-                    "document.body.style.overflow='auto';";
-            js.executeScript(jsScript);
-        } catch (Exception ignored) {
-        }
+    protected void dismissCookieConsent() {
+        timed("dismissCookieConsent", () -> {
+            try {
+                WebDriverWait shortWait = waitFor("dismissCookieConsent.prompt", Duration.ofSeconds(5));
+                shortWait.until(ExpectedConditions.presenceOfElementLocated(By.cssSelector(".privacy_prompt")));
+
+                // Click Opt-In radio
+                try {
+                    WebElement optIn = shortWait.until(ExpectedConditions.elementToBeClickable(By.id("privacy_pref_optin")));
+                    optIn.click();
+                } catch (Exception ignored) {
+                }
+
+                // Click SUBMIT button
+                try {
+                    WebElement submitDiv = shortWait.until(ExpectedConditions.elementToBeClickable(By.id("consent_prompt_submit")));
+                    js.executeScript("arguments[0].click();", submitDiv);
+                } catch (Exception e) {
+                    try {
+                        WebElement submitDiv = driver.findElement(By.cssSelector("#consent_prompt_submit"));
+                        submitDiv.click();
+                    } catch (Exception ignored) {
+                        js.executeScript("var p=document.querySelector('.privacy_prompt'); if(p){p.style.display='none';}");
+                    }
+                }
+
+                try {
+                    waitFor("dismissCookieConsent.hidden", Duration.ofMillis(500))
+                        .until(ExpectedConditions.invisibilityOfElementLocated(By.cssSelector(".privacy_prompt")));
+                } catch (Exception ignored) {
+                }
+            } catch (Exception e) {
+                Log.debug("Cookie consent not shown or already handled.");
+            }
+        });
     }
 
     protected void scrollToElement(WebElement element) {
@@ -99,20 +437,23 @@ public class BasePage {
     }
 
     protected void hoverOver(WebElement element) {
-        actions.moveToElement(element).perform();
-        try {
-            new WebDriverWait(driver, Duration.ofMillis(600)).until(d -> true);
-        } catch (Exception ignored) {
-        }
+        timed("hoverOver", () -> {
+            actions.moveToElement(element).perform();
+            try {
+                waitForElementStable(element);
+            } catch (TimeoutException ignored) {
+                // Continuously animated element, read whatever state it is in
+            }
+        });
     }
 
 
     public String getCurrentUrl() {
-        return driver.getCurrentUrl();
+        return timed("getCurrentUrl", () -> driver.getCurrentUrl());
     }
 
     public String getPageTitle() {
-        return driver.getTitle();
+        return timed("getPageTitle", () -> driver.getTitle());
     }
 }
 
@@ -0,0 +1,61 @@
+package pages;
+
+import org.openqa.selenium.WebElement;
+import utils.Money;
+
+import java.util.List;
+
+/** Immutable snapshot of one shopping cart row: unit price and quantity as read in a single pass */
+public final class CartLine {
+    private final int index;
+    private final WebElement element;
+    private final String name;
+    private final long unitPriceCents;
+    private final int quantity;
+
+    CartLine(int index, WebElement element, String name, long unitPriceCents, int quantity) {
+        this.index = index;
+        this.element = element;
+        this.name = name;
+        this.unitPriceCents = unitPriceCents;
+        this.quantity = quantity;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public WebElement getElement() {
+        return element;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getUnitPriceCents() {
+        return unitPriceCents;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public long getLineTotalCents() {
+        return unitPriceCents * quantity;
+    }
+
+    /** Sum of all line totals in cents */
+    public static long totalCents(List<CartLine> lines) {
+        long total = 0;
+        for (CartLine line : lines) {
+            total += line.getLineTotalCents();
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return name + ": $" + Money.format(unitPriceCents) + " x " + quantity + " = $" + Money.format(getLineTotalCents());
+    }
+}
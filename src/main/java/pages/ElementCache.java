@@ -0,0 +1,115 @@
+package pages;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Element lookups of the document currently shown in one browser, shared by every page object on that
+ * driver. Each lookup runs once per document; {@link #invalidate()} is called by {@link BasePage} whenever
+ * it waits for a page load, after which {@link ElementHandle}s re-resolve lazily on their next use.
+ * A driver belongs to one test thread, so instances are not synchronised.
+ */
+final class ElementCache {
+
+    private static final Map<WebDriver, ElementCache> CACHES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final WebDriver driver;
+    private final Map<String, List<WebElement>> lookups = new HashMap<>();
+    private final Map<String, List<ElementHandle>> handleLists = new HashMap<>();
+    private long generation;
+
+    private ElementCache(WebDriver driver) {
+        this.driver = driver;
+    }
+
+    static ElementCache of(WebDriver driver) {
+        return CACHES.computeIfAbsent(driver, ElementCache::new);
+    }
+
+    /** The browser has navigated, or may have: nothing found so far belongs to the current document */
+    void invalidate() {
+        generation++;
+        lookups.clear();
+        handleLists.clear();
+    }
+
+    long generation() {
+        return generation;
+    }
+
+    /** Handles for every element matching {@code locator}, found once per document unless there were none */
+    List<ElementHandle> all(By locator) {
+        String key = locator.toString();
+        List<ElementHandle> handles = handleLists.get(key);
+        if (handles == null) {
+            Supplier<List<WebElement>> lookup = () -> driver.findElements(locator);
+            List<WebElement> elements = resolveAll(key, lookup);
+            handles = new ArrayList<>(elements.size());
+            for (int i = 0; i < elements.size(); i++) {
+                handles.add(handle(key, lookup, i, elements.get(i)));
+            }
+            handles = Collections.unmodifiableList(handles);
+            if (!handles.isEmpty()) {
+                handleLists.put(key, handles);
+            } else {
+                // Not loaded yet, perhaps: let the next call look again
+                lookups.remove(key);
+            }
+        }
+        return handles;
+    }
+
+    /** Handle for the {@code index}-th match of {@code locator}, already resolved to {@code element} */
+    ElementHandle handle(By locator, int index, WebElement element) {
+        return handle(locator.toString(), () -> driver.findElements(locator), index, element);
+    }
+
+    /**
+     * Handle for the {@code index}-th element returned by {@code lookup}, e.g. a script, cached under
+     * {@code key}. Siblings share one lookup when they are re-resolved.
+     */
+    ElementHandle handle(String key, Supplier<List<WebElement>> lookup, int index, WebElement element) {
+        return new ElementHandle(this, key + "[" + index + "]", null, key,
+                () -> elementAt(resolveAll(key, lookup), index, key), element);
+    }
+
+    List<WebElement> resolveAll(String key, Supplier<List<WebElement>> lookup) {
+        List<WebElement> elements = lookups.get(key);
+        if (elements == null) {
+            elements = lookup.get();
+            lookups.put(key, elements);
+        }
+        return elements;
+    }
+
+    /**
+     * Drops a lookup whose element turned out to be stale without a navigation, e.g. after an AJAX update.
+     * Kept if a sibling already replaced it with a fresh lookup.
+     */
+    void forget(String key, WebElement stale) {
+        List<WebElement> cached = lookups.get(key);
+        if (cached == null || stale == null || cached.contains(stale)) {
+            lookups.remove(key);
+            handleLists.remove(key);
+        }
+    }
+
+    static WebElement elementAt(List<WebElement> elements, int index, String description) {
+        int size = elements == null ? 0 : elements.size();
+        if (index >= size) {
+            throw new NoSuchElementException("Element " + description + " no longer exists: only "
+                    + size + " match now");
+        }
+        return elements.get(index);
+    }
+}
@@ -0,0 +1,218 @@
+package pages;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsElement;
+import utils.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A WebElement that remembers how it was found. It is resolved lazily, kept until the page navigates
+ * ({@link ElementCache#invalidate()}), and looked up again once if a command fails with
+ * {@link StaleElementReferenceException}, e.g. after the page re-rendered its product grid. Elements found
+ * inside a handle are handles themselves, re-resolved through their parent.
+ *
+ * <p>Page objects hand these out wherever they used to return raw elements, so callers can keep a list
+ * across navigations without catching stale-element errors.
+ */
+public final class ElementHandle implements WebElement, WrapsElement {
+
+    private final ElementCache cache;
+    private final String description;
+    private final ElementHandle parent;
+    private final String lookupKey;
+    private final Supplier<WebElement> locator;
+
+    private WebElement element;
+    private long generation;
+
+    ElementHandle(ElementCache cache, String description, ElementHandle parent, String lookupKey,
+                  Supplier<WebElement> locator, WebElement resolved) {
+        this.cache = cache;
+        this.description = description;
+        this.parent = parent;
+        this.lookupKey = lookupKey;
+        this.locator = locator;
+        this.element = resolved;
+        this.generation = cache.generation();
+    }
+
+    /** The current element, looked up again if the page has navigated since it was last resolved */
+    @Override
+    public WebElement getWrappedElement() {
+        if (element == null || generation != cache.generation()) {
+            element = locator.get();
+            generation = cache.generation();
+        }
+        return element;
+    }
+
+    /** Forgets the resolved element, and its parent's, so the next use finds them again */
+    private void reset() {
+        if (lookupKey != null) {
+            cache.forget(lookupKey, element);
+        }
+        element = null;
+        if (parent != null) {
+            parent.reset();
+        }
+    }
+
+    private <T> T call(Function<WebElement, T> command) {
+        try {
+            return command.apply(getWrappedElement());
+        } catch (StaleElementReferenceException e) {
+            Log.debug(() -> "Stale element " + description + ", finding it again");
+            reset();
+            return command.apply(getWrappedElement());
+        }
+    }
+
+    private void run(Consumer<WebElement> command) {
+        call(e -> {
+            command.accept(e);
+            return null;
+        });
+    }
+
+    @Override
+    public void click() {
+        run(WebElement::click);
+    }
+
+    @Override
+    public void submit() {
+        run(WebElement::submit);
+    }
+
+    @Override
+    public void sendKeys(CharSequence... keysToSend) {
+        run(e -> e.sendKeys(keysToSend));
+    }
+
+    @Override
+    public void clear() {
+        run(WebElement::clear);
+    }
+
+    @Override
+    public String getTagName() {
+        return call(WebElement::getTagName);
+    }
+
+    @Override
+    public String getDomProperty(String name) {
+        return call(e -> e.getDomProperty(name));
+    }
+
+    @Override
+    public String getDomAttribute(String name) {
+        return call(e -> e.getDomAttribute(name));
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public String getAttribute(String name) {
+        return call(e -> e.getAttribute(name));
+    }
+
+    @Override
+    public String getAriaRole() {
+        return call(WebElement::getAriaRole);
+    }
+
+    @Override
+    public String getAccessibleName() {
+        return call(WebElement::getAccessibleName);
+    }
+
+    @Override
+    public boolean isSelected() {
+        return call(WebElement::isSelected);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return call(WebElement::isEnabled);
+    }
+
+    @Override
+    public String getText() {
+        return call(WebElement::getText);
+    }
+
+    /** Handles for the matching descendants, each re-resolved through this handle when stale */
+    @Override
+    public List<WebElement> findElements(By by) {
+        List<WebElement> found = call(e -> e.findElements(by));
+        List<WebElement> handles = new ArrayList<>(found.size());
+        for (int i = 0; i < found.size(); i++) {
+            int index = i;
+            String childDescription = description + " > " + by + "[" + i + "]";
+            handles.add(new ElementHandle(cache, childDescription, this, null,
+                    () -> ElementCache.elementAt(getWrappedElement().findElements(by), index, childDescription),
+                    found.get(i)));
+        }
+        return handles;
+    }
+
+    /** Handle for the first matching descendant, re-resolved through this handle when stale */
+    @Override
+    public WebElement findElement(By by) {
+        WebElement found = call(e -> e.findElement(by));
+        return new ElementHandle(cache, description + " > " + by, this, null,
+                () -> getWrappedElement().findElement(by), found);
+    }
+
+    @Override
+    public SearchContext getShadowRoot() {
+        return call(WebElement::getShadowRoot);
+    }
+
+    @Override
+    public boolean isDisplayed() {
+        return call(WebElement::isDisplayed);
+    }
+
+    @Override
+    public Point getLocation() {
+        return call(WebElement::getLocation);
+    }
+
+    @Override
+    public Dimension getSize() {
+        return call(WebElement::getSize);
+    }
+
+    @Override
+    public Rectangle getRect() {
+        return call(WebElement::getRect);
+    }
+
+    @Override
+    public String getCssValue(String propertyName) {
+        return call(e -> e.getCssValue(propertyName));
+    }
+
+    @Override
+    public <X> X getScreenshotAs(OutputType<X> target) throws WebDriverException {
+        return call(e -> e.getScreenshotAs(target));
+    }
+
+    @Override
+    public String toString() {
+        return "ElementHandle{" + description + "}";
+    }
+}
@@ -0,0 +1,80 @@
+package pages;
+
+import org.openqa.selenium.WebElement;
+
+import java.util.Collections;
+import java.util.Map;
+
+/** Immutable view of one element as returned by {@link BasePage#queryAll}, read in a single script call */
+public final class ElementSnapshot {
+    private final int index;
+    private final WebElement element;
+    private final boolean displayed;
+    private final double x;
+    private final double y;
+    private final double width;
+    private final double height;
+    private final String text;
+    private final Map<String, String> attributes;
+
+    ElementSnapshot(int index, WebElement element, boolean displayed, double x, double y, double width,
+                    double height, String text, Map<String, String> attributes) {
+        this.index = index;
+        this.element = element;
+        this.displayed = displayed;
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.text = text;
+        this.attributes = Collections.unmodifiableMap(attributes);
+    }
+
+    /** Position among all elements matched by the selector, displayed or not */
+    public int getIndex() {
+        return index;
+    }
+
+    public WebElement getElement() {
+        return element;
+    }
+
+    public boolean isDisplayed() {
+        return displayed;
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public double getWidth() {
+        return width;
+    }
+
+    public double getHeight() {
+        return height;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /** Requested attribute, or null when the element does not have it */
+    public String getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    public Map<String, String> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public String toString() {
+        return "ElementSnapshot{index=" + index + ", displayed=" + displayed + ", size=" + width + "x" + height
+                + ", text='" + text + "'}";
+    }
+}
@@ -4,25 +4,71 @@ import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.ui.ExpectedConditions;
+import utils.CategoryUrlCache;
+import utils.Log;
+import utils.NavigationStrategy;
+import utils.SiteUrls;
 
 public class HomePage extends BasePage {
 
-    private static final String BASE_URL = "https://ecommerce.tealiumdemo.com/";
-
+    /** arguments[0]: category URL part, e.g. "women". Returns the first link to {@code .../<part>.html}, or null */
+    private static final String CATEGORY_LINK_SCRIPT =
+            "var suffix = '/' + arguments[0] + '.html', links = document.querySelectorAll('a[href]');" +
+            "for (var i = 0; i < links.length; i++) {" +
+            "  var path = links[i].pathname;" +
+            "  if (path.slice(-suffix.length) === suffix) { return links[i].href; }" +
+            "}" +
+            "return null;";
 
     public HomePage(WebDriver driver) {
         super(driver);
     }
 
     public void open() {
-        navigateTo(BASE_URL);
-        dismissCookieConsent();
-        waitForPageReady();
+        timed("open", () -> {
+            navigateTo(SiteUrls.baseUrl());
+            dismissCookieConsent();
+            waitForPageReady();
+        });
+    }
+
+    private void navigateToCategory(String menuText, String expectedUrlPart, NavigationStrategy strategy) {
+        if (strategy == NavigationStrategy.DIRECT && jumpToCategory(menuText, expectedUrlPart)) {
+            return;
+        }
+        navigateToCategoryViaMenu(menuText, expectedUrlPart);
     }
 
-    private void navigateToCategory(String menuText, String expectedUrlPart) {
+    /**
+     * Opens the category URL directly. The URL comes from {@link CategoryUrlCache}, or from the menu links
+     * already in the current page (no hover needed) the first time. Returns false, forgetting the cached
+     * URL, when the jump did not land on the category so the caller can fall back to the menu.
+     */
+    private boolean jumpToCategory(String menuText, String expectedUrlPart) {
+        CategoryUrlCache cache = CategoryUrlCache.getInstance();
+        String path = cache.lookup(menuText);
+        if (path == null) {
+            cache.remember(menuText, (String) js.executeScript(CATEGORY_LINK_SCRIPT, expectedUrlPart));
+            path = cache.lookup(menuText);
+            if (path == null) {
+                return false;
+            }
+        }
+
+        navigateTo(SiteUrls.resolve(path));
+
+        String currentUrl = driver.getCurrentUrl();
+        if (currentUrl != null && currentUrl.contains(expectedUrlPart)
+                && (expectedUrlPart.contains("women") || !currentUrl.contains("women"))) {
+            return true;
+        }
+        Log.warn("Cached URL for " + menuText + " led to " + currentUrl + ", using the menu instead");
+        cache.forget(menuText);
+        return false;
+    }
+
+    private void navigateToCategoryViaMenu(String menuText, String expectedUrlPart) {
         waitForPageReady();
-        removeOverlays();
 
         // Trying multiple locator strategies for the menu
         By[] menuLocators = {
@@ -32,17 +78,8 @@ public class HomePage extends BasePage {
             By.xpath("//span[contains(text(),'" + menuText + "')]/parent::a")
         };
 
-        WebElement menu = null;
-        for (By locator : menuLocators) {
-            try {
-                menu = wait.until(ExpectedConditions.presenceOfElementLocated(locator));
-                if (menu.isDisplayed()) {
-                    break;
-                }
-            } catch (Exception e) {
-                continue;
-            }
-        }
+        WebElement menu = findWithFallback("HomePage.menu." + menuText, menuLocators,
+                ExpectedConditions::presenceOfElementLocated, WebElement::isDisplayed);
 
         if (menu == null) {
             throw new RuntimeException("Could not find " + menuText + " menu");
@@ -51,12 +88,8 @@ public class HomePage extends BasePage {
         scrollToElement(menu);
         actions.moveToElement(menu).perform();
 
-        // Wait a moment for submenu to appear
-        try {
-            Thread.sleep(500);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        // Wait for the submenu to finish opening
+        waitForDomQuiet();
 
         By[] viewAllLocators = {
             By.xpath("//a[contains(text(),'View All') and contains(@href,'" + expectedUrlPart + "')]"),
@@ -64,43 +97,62 @@ public class HomePage extends BasePage {
             By.xpath("//a[text()='View All']")
         };
 
-        WebElement viewAllLink = null;
-        for (By locator : viewAllLocators) {
-            try {
-                viewAllLink = wait.until(ExpectedConditions.elementToBeClickable(locator));
-                String href = viewAllLink.getAttribute("href");
-                if (href != null && href.contains(expectedUrlPart)) {
-                    break;
-                }
-            } catch (Exception e) {
-                continue;
-            }
-        }
+        WebElement viewAllLink = findWithFallback("HomePage.viewAll." + menuText, viewAllLocators,
+                ExpectedConditions::elementToBeClickable, link -> {
+                    String href = link.getDomProperty("href");
+                    return href != null && href.contains(expectedUrlPart);
+                });
 
         if (viewAllLink == null) {
             throw new RuntimeException("Could not find View All link for " + menuText);
         }
+        CategoryUrlCache.getInstance().remember(menuText, viewAllLink.getDomProperty("href"));
 
         viewAllLink.click();
 
         wait.until(ExpectedConditions.urlContains(expectedUrlPart));
         waitForPageReady();
+        recordNavigationTiming();
     }
 
 
     public WomenProductsPage navigateToWomenProducts() {
-        navigateToCategory("WOMEN", "women");
-        return new WomenProductsPage(driver);
+        return navigateToWomenProducts(NavigationStrategy.current());
+    }
+
+    public WomenProductsPage navigateToWomenProducts(NavigationStrategy strategy) {
+        return timed("navigateToWomenProducts", () -> {
+            navigateToCategory("WOMEN", "women", strategy);
+            return new WomenProductsPage(driver);
+        });
     }
 
     public SaleProductsPage navigateToSaleProducts() {
-        navigateToCategory("SALE", "sale");
-        return new SaleProductsPage(driver);
+        return navigateToSaleProducts(NavigationStrategy.current());
+    }
+
+    public SaleProductsPage navigateToSaleProducts(NavigationStrategy strategy) {
+        return timed("navigateToSaleProducts", () -> {
+            navigateToCategory("SALE", "sale", strategy);
+            return new SaleProductsPage(driver);
+        });
     }
 
     public MenProductsPage navigateToMenProducts() {
+        return navigateToMenProducts(NavigationStrategy.current());
+    }
+
+    public MenProductsPage navigateToMenProducts(NavigationStrategy strategy) {
+        return timed("navigateToMenProducts", () -> {
+            if (strategy != NavigationStrategy.DIRECT || !jumpToCategory("MEN", "men")) {
+                navigateToMenViaMenu();
+            }
+            return new MenProductsPage(driver);
+        });
+    }
+
+    private void navigateToMenViaMenu() {
         waitForPageReady();
-        removeOverlays();
 
         By[] menMenuLocators = {
             By.xpath("//nav//a[contains(text(),'MEN')]"),
@@ -109,17 +161,8 @@ public class HomePage extends BasePage {
             By.xpath("//span[contains(text(),'MEN')]/parent::a")
         };
 
-        WebElement menMenu = null;
-        for (By locator : menMenuLocators) {
-            try {
-                menMenu = wait.until(ExpectedConditions.presenceOfElementLocated(locator));
-                if (menMenu.isDisplayed()) {
-                    break;
-                }
-            } catch (Exception e) {
-                continue;
-            }
-        }
+        WebElement menMenu = findWithFallback("HomePage.menu.MEN", menMenuLocators,
+                ExpectedConditions::presenceOfElementLocated, WebElement::isDisplayed);
 
         if (menMenu == null) {
             throw new RuntimeException("Could not find MEN menu");
@@ -128,11 +171,7 @@ public class HomePage extends BasePage {
         scrollToElement(menMenu);
         actions.moveToElement(menMenu).perform();
 
-        try {
-            Thread.sleep(500);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        waitForDomQuiet();
 
         By[] viewAllLocators = {
             By.xpath("//a[contains(text(),'View All') and contains(@href,'men') and not(contains(@href,'women'))]"),
@@ -140,22 +179,16 @@ public class HomePage extends BasePage {
             By.xpath("//a[text()='View All Men' or text()='View All']")
         };
 
-        WebElement viewAllLink = null;
-        for (By locator : viewAllLocators) {
-            try {
-                viewAllLink = wait.until(ExpectedConditions.elementToBeClickable(locator));
-                String href = viewAllLink.getAttribute("href");
-                if (href != null && !href.contains("women")) {
-                    break;
-                }
-            } catch (Exception e) {
-                continue;
-            }
-        }
+        WebElement viewAllLink = findWithFallback("HomePage.viewAll.MEN", viewAllLocators,
+                ExpectedConditions::elementToBeClickable, link -> {
+                    String href = link.getDomProperty("href");
+                    return href != null && !href.contains("women");
+                });
 
         if (viewAllLink == null) {
             throw new RuntimeException("Could not find View All link for Men menu");
         }
+        CategoryUrlCache.getInstance().remember("MEN", viewAllLink.getDomProperty("href"));
 
         viewAllLink.click();
 
@@ -167,8 +200,7 @@ public class HomePage extends BasePage {
         }
 
         waitForPageReady();
-
-        return new MenProductsPage(driver);
+        recordNavigationTiming();
     }
 }
 
@@ -4,80 +4,96 @@ import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.ui.ExpectedConditions;
+import utils.Log;
+import utils.Money;
 
 import java.util.ArrayList;
 import java.util.List;
 
 public class MenProductsPage extends BasePage {
 
-    private final By productListLocator = By.cssSelector(".products-grid > li, ul.products-grid li.item");
-    private final By priceBoxLocator = By.cssSelector(".price-box .price");
+    private final String productListSelector = ".products-grid > li, ul.products-grid li.item";
+    private final By productListLocator = By.cssSelector(productListSelector);
+    private final String priceSelector = ".price-box .price";
+    private final By priceBoxLocator = By.cssSelector(priceSelector);
 
     public MenProductsPage(WebDriver driver) {
         super(driver);
     }
 
     public List<WebElement> getDisplayedProducts() {
-        removeOverlays();
-        wait.until(ExpectedConditions.presenceOfElementLocated(productListLocator));
+        return timed("getDisplayedProducts", () -> {
+            wait.until(ExpectedConditions.presenceOfElementLocated(productListLocator));
 
-        // Scroll to ensure all products are loaded
-        js.executeScript("window.scrollTo(0, document.body.scrollHeight);");
+            // Scroll to ensure all products are loaded
+            js.executeScript("window.scrollTo(0, document.body.scrollHeight);");
 
-        List<WebElement> products = driver.findElements(productListLocator);
-        List<WebElement> displayedProducts = new ArrayList<>();
-
-        for (WebElement product : products) {
-            try {
-                List<WebElement> productNameElements = product.findElements(By.cssSelector(".product-name"));
-                if (!productNameElements.isEmpty() && productNameElements.get(0).isDisplayed()) {
-                    displayedProducts.add(product);
+            List<WebElement> displayedProducts = new ArrayList<>();
+            for (ElementSnapshot product : queryAllWithProbe(productListSelector, ".product-name")) {
+                if (product.isDisplayed()) {
+                    displayedProducts.add(handleFor(productListSelector, product));
                 }
-            } catch (Exception e) {
             }
-        }
 
-        return displayedProducts;
+            return displayedProducts;
+        });
     }
 
 
     public void selectBlackColor() {
-        removeOverlays();
-
-        WebElement blackColorLink = wait.until(ExpectedConditions.elementToBeClickable(
-            By.xpath("//a[@class='swatch-link has-image']//img[contains(translate(@alt,'BLACK','black'),'black')]/ancestor::a")));
+        timed("selectBlackColor", () -> {
+            WebElement blackColorLink = wait.until(ExpectedConditions.elementToBeClickable(
+                By.xpath("//a[@class='swatch-link has-image']//img[contains(translate(@alt,'BLACK','black'),'black')]/ancestor::a")));
 
-        scrollToElement(blackColorLink);
-        blackColorLink.click();
+            scrollToElement(blackColorLink);
+            blackColorLink.click();
 
-        waitForPageReady();
+            waitForPageReady();
+        });
     }
 
     public void selectFirstPriceOption() {
-        removeOverlays();
-        WebElement firstPriceOption = wait.until(ExpectedConditions.elementToBeClickable(
-            By.xpath("(//a[contains(@href,'price=')])[1]")));
+        timed("selectFirstPriceOption", () -> {
+            WebElement firstPriceOption = wait.until(ExpectedConditions.elementToBeClickable(
+                By.xpath("(//a[contains(@href,'price=')])[1]")));
 
-        scrollToElement(firstPriceOption);
+            scrollToElement(firstPriceOption);
 
-        String priceText = firstPriceOption.getText();
-        System.out.println("Selecting price filter: " + priceText);
+            String priceText = firstPriceOption.getText();
+            Log.info("Selecting price filter: " + priceText);
 
-        firstPriceOption.click();
+            firstPriceOption.click();
 
-        waitForPageReady();
-        wait.until(ExpectedConditions.urlContains("price="));
+            waitForPageReady();
+            wait.until(ExpectedConditions.urlContains("price="));
+        });
+    }
+
+    /** Name and price of every product whose name is displayed, read in a single pass */
+    public List<ProductCard> getProductCards() {
+        return timed("getProductCards", () -> {
+            wait.until(ExpectedConditions.presenceOfElementLocated(productListLocator));
+
+            js.executeScript("window.scrollTo(0, document.body.scrollHeight);");
+
+            List<ProductCard> displayedCards = new ArrayList<>();
+            for (ProductCard card : extractProductCards(productListSelector, ".product-name", priceSelector)) {
+                if (card.isDisplayed()) {
+                    displayedCards.add(card);
+                }
+            }
+            return displayedCards;
+        });
     }
 
     public double getProductPrice(WebElement product) {
-        try {
-            WebElement priceElement = product.findElement(priceBoxLocator);
-            String priceText = priceElement.getText().trim();
-
-            priceText = priceText.replaceAll("[^0-9.]", "");
-            return Double.parseDouble(priceText);
-        } catch (Exception e) {
-            throw new RuntimeException("Could not get product price: " + e.getMessage());
-        }
+        return timed("getProductPrice", () -> {
+            try {
+                WebElement priceElement = product.findElement(priceBoxLocator);
+                return Money.toDouble(Money.parseCents(priceElement.getText()));
+            } catch (Exception e) {
+                throw new RuntimeException("Could not get product price: " + e.getMessage());
+            }
+        });
     }
 }
@@ -0,0 +1,36 @@
+package pages;
+
+import utils.CssColor;
+
+import java.util.function.Predicate;
+
+/**
+ * Colour checks used on the sale page's price labels. Static and browser-free so they can be benchmarked
+ * on their own; {@link SaleProductsPage#isGreyColor} and {@link SaleProductsPage#isBlueColor} delegate here.
+ * Values go through {@link CssColor#cached(String)}, so any CSS colour syntax is understood and a value seen
+ * before is not parsed again. Anything that is not a colour is neither grey nor blue.
+ */
+public final class PriceColors {
+
+    /** Channels at most 20 apart, not black (some channel above 50) and not white (some channel below 200) */
+    public static final Predicate<CssColor> GREY = CssColor.grey(20, 50, 200);
+
+    /** Blue channel higher than both red and green, e.g. Luma's "rgba(51, 153, 204, 1)" special price */
+    public static final Predicate<CssColor> BLUE = CssColor.blueDominant();
+
+    private PriceColors() {
+    }
+
+    public static boolean isGrey(String colorValue) {
+        return matches(colorValue, GREY);
+    }
+
+    public static boolean isBlue(String colorValue) {
+        return matches(colorValue, BLUE);
+    }
+
+    public static boolean matches(String colorValue, Predicate<CssColor> colorClass) {
+        CssColor color = CssColor.cached(colorValue);
+        return color != null && colorClass.test(color);
+    }
+}
@@ -0,0 +1,67 @@
+package pages;
+
+/** Computed price styles of one sale product card, as collected by {@link SaleProductsPage#auditPriceStyles()} */
+public final class PriceStyleAudit {
+    private final int position;
+    private final boolean multiplePrices;
+    private final String originalColor;
+    private final String originalTextDecoration;
+    private final String finalColor;
+    private final String finalTextDecoration;
+    private final String finalPriceText;
+
+    PriceStyleAudit(int position, boolean multiplePrices, String originalColor, String originalTextDecoration,
+                    String finalColor, String finalTextDecoration, String finalPriceText) {
+        this.position = position;
+        this.multiplePrices = multiplePrices;
+        this.originalColor = originalColor;
+        this.originalTextDecoration = originalTextDecoration;
+        this.finalColor = finalColor;
+        this.finalTextDecoration = finalTextDecoration;
+        this.finalPriceText = finalPriceText;
+    }
+
+    /** 1-based position among the displayed sale products */
+    public int getPosition() {
+        return position;
+    }
+
+    public boolean hasMultiplePrices() {
+        return multiplePrices;
+    }
+
+    public String getOriginalColor() {
+        return originalColor;
+    }
+
+    public String getOriginalTextDecoration() {
+        return originalTextDecoration;
+    }
+
+    public boolean originalHasStrikethrough() {
+        return originalTextDecoration != null && originalTextDecoration.contains("line-through");
+    }
+
+    public String getFinalColor() {
+        return finalColor;
+    }
+
+    public String getFinalTextDecoration() {
+        return finalTextDecoration;
+    }
+
+    public boolean finalHasStrikethrough() {
+        return finalTextDecoration != null && finalTextDecoration.contains("line-through");
+    }
+
+    public String getFinalPriceText() {
+        return finalPriceText;
+    }
+
+    @Override
+    public String toString() {
+        return "Product " + position + ": multiplePrices=" + multiplePrices
+                + ", original=[" + originalColor + ", " + originalTextDecoration + "]"
+                + ", final=[" + finalColor + ", " + finalTextDecoration + ", " + finalPriceText + "]";
+    }
+}
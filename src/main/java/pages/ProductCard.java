@@ -0,0 +1,89 @@
+package pages;
+
+import org.openqa.selenium.WebElement;
+import utils.Money;
+
+/**
+ * Immutable snapshot of one product card in a category grid, filled in a single extraction pass so that
+ * sorting and range checks run on in-memory data instead of live elements.
+ */
+public final class ProductCard {
+    private final int index;
+    private final WebElement element;
+    private final boolean displayed;
+    private final double height;
+    private final String name;
+    private final String priceText;
+    private final Long priceCents;
+    private final String productId;
+
+    ProductCard(int index, WebElement element, boolean displayed, double height, String name, String priceText,
+                String productId) {
+        this.index = index;
+        this.element = element;
+        this.displayed = displayed;
+        this.height = height;
+        this.name = name;
+        this.priceText = priceText;
+        this.priceCents = parseOrNull(priceText);
+        this.productId = productId;
+    }
+
+    /** Position among all cards matched on the page, displayed or not */
+    public int getIndex() {
+        return index;
+    }
+
+    public WebElement getElement() {
+        return element;
+    }
+
+    public boolean isDisplayed() {
+        return displayed;
+    }
+
+    public double getHeight() {
+        return height;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getPriceText() {
+        return priceText;
+    }
+
+    public boolean hasPrice() {
+        return priceCents != null;
+    }
+
+    /** Price in cents; fails if the card shows no parseable price */
+    public long getPriceCents() {
+        if (priceCents == null) {
+            throw new IllegalStateException("Product '" + name + "' has no parseable price: '" + priceText + "'");
+        }
+        return priceCents;
+    }
+
+    /** Catalog id taken from the card's "product-price-N" price box; fails if the card has none */
+    public int getProductId() {
+        if (productId == null) {
+            throw new IllegalStateException("Product '" + name + "' has no product-price-N id");
+        }
+        return Integer.parseInt(productId);
+    }
+
+    @Override
+    public String toString() {
+        return "ProductCard{" + name + ", " + (priceCents == null ? priceText : "$" + Money.format(priceCents)) + "}";
+    }
+
+    private static Long parseOrNull(String text) {
+        try {
+            return text == null ? null : Money.parseCents(text);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
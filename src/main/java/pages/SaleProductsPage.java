@@ -4,133 +4,160 @@ import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.ui.ExpectedConditions;
+import utils.Log;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 public class SaleProductsPage extends BasePage {
 
-    private final By saleProductsLocator = By.cssSelector(".products-grid > li, ul.products-grid li.item");
+    private final String saleProductsSelector = ".products-grid > li, ul.products-grid li.item";
+    private final By saleProductsLocator = By.cssSelector(saleProductsSelector);
     private final By priceBoxLocator = By.cssSelector(".price-box");
-    private final By oldPriceLocator = By.cssSelector(".old-price .price, .regular-price .price");
-    private final By specialPriceLocator = By.cssSelector(".special-price .price");
+    private final String oldPriceSelector = ".old-price .price, .regular-price .price";
+    private final By oldPriceLocator = By.cssSelector(oldPriceSelector);
+    private final String specialPriceSelector = ".special-price .price";
+    private final By specialPriceLocator = By.cssSelector(specialPriceSelector);
+
+    /** arguments[0]: card selector, arguments[1]: old price selector, arguments[2]: special price selector */
+    private static final String PRICE_STYLE_AUDIT_SCRIPT = JS_VISIBLE_FUNCTION +
+            "var oldSelector = arguments[1], specialSelector = arguments[2];" +
+            "function style(el) {" +
+            "  if (!el) { return null; }" +
+            "  var cs = getComputedStyle(el);" +
+            "  return {color: cs.color, decoration: cs.textDecoration, text: (el.innerText || '').trim()};" +
+            "}" +
+            "return Array.prototype.filter.call(document.querySelectorAll(arguments[0]), function(card) {" +
+            "  return visible(card) && card.getBoundingClientRect().height > 50;" +
+            "}).map(function(card) {" +
+            "  var box = card.querySelector('.price-box');" +
+            "  return {" +
+            "    original: style(box && box.querySelector(oldSelector))," +
+            "    special: style(box && box.querySelector(specialSelector))" +
+            "  };" +
+            "});";
 
     public SaleProductsPage(WebDriver driver) {
         super(driver);
     }
 
     public List<WebElement> getSaleProducts() {
-        removeOverlays();
+        return timed("getSaleProducts", () -> {
+            wait.until(ExpectedConditions.presenceOfElementLocated(saleProductsLocator));
 
-        wait.until(ExpectedConditions.presenceOfElementLocated(saleProductsLocator));
+            List<ElementSnapshot> products = queryAll(saleProductsSelector);
+            List<WebElement> displayedProducts = new ArrayList<>();
 
-        List<WebElement> products = driver.findElements(saleProductsLocator);
-        List<WebElement> displayedProducts = new ArrayList<>();
+            Log.debug("Total elements found with locator: " + products.size());
 
-        System.out.println("Total elements found with locator: " + products.size());
-
-        for (WebElement product : products) {
-            try {
-                if (product.isDisplayed() && product.getSize().getHeight() > 50) {
-                    displayedProducts.add(product);
+            for (ElementSnapshot product : products) {
+                if (product.isDisplayed() && product.getHeight() > 50) {
+                    displayedProducts.add(handleFor(saleProductsSelector, product));
                 }
-            } catch (Exception e) {
             }
-        }
 
-        System.out.println("Filtered to actual product cards: " + displayedProducts.size() + " products on sale page");
-        return displayedProducts;
+            Log.debug("Filtered to actual product cards: " + displayedProducts.size() + " products on sale page");
+            return displayedProducts;
+        });
+    }
+
+    /**
+     * Collects the computed color and text-decoration of the original and special price of every displayed
+     * sale product in a single script call, so the cost does not grow with the size of the category.
+     */
+    public List<PriceStyleAudit> auditPriceStyles() {
+        return timed("auditPriceStyles", () -> {
+            wait.until(ExpectedConditions.presenceOfElementLocated(saleProductsLocator));
+
+            Object result = js.executeScript(PRICE_STYLE_AUDIT_SCRIPT, saleProductsSelector, oldPriceSelector, specialPriceSelector);
+
+            List<PriceStyleAudit> audits = new ArrayList<>();
+            if (!(result instanceof List)) {
+                return audits;
+            }
+            List<?> rows = (List<?>) result;
+            for (int i = 0; i < rows.size(); i++) {
+                Map<?, ?> row = (Map<?, ?>) rows.get(i);
+                Map<?, ?> original = (Map<?, ?>) row.get("original");
+                Map<?, ?> special = (Map<?, ?>) row.get("special");
+                audits.add(new PriceStyleAudit(
+                        i + 1,
+                        original != null && special != null,
+                        valueOf(original, "color"),
+                        valueOf(original, "decoration"),
+                        valueOf(special, "color"),
+                        valueOf(special, "decoration"),
+                        valueOf(special, "text")));
+            }
+
+            Log.info("Audited price styles of " + audits.size() + " products on sale page");
+            return audits;
+        });
+    }
+
+    private static String valueOf(Map<?, ?> style, String key) {
+        Object value = style == null ? null : style.get(key);
+        return value == null ? null : String.valueOf(value);
     }
 
     public boolean hasMultiplePrices(WebElement product) {
-        try {
-            WebElement priceBox = product.findElement(priceBoxLocator);
+        return timed("hasMultiplePrices", () -> {
+            try {
+                WebElement priceBox = product.findElement(priceBoxLocator);
 
-            List<WebElement> oldPrices = priceBox.findElements(oldPriceLocator);
-            List<WebElement> specialPrices = priceBox.findElements(specialPriceLocator);
+                List<WebElement> oldPrices = priceBox.findElements(oldPriceLocator);
+                List<WebElement> specialPrices = priceBox.findElements(specialPriceLocator);
 
-            return !oldPrices.isEmpty() && !specialPrices.isEmpty();
-        } catch (Exception e) {
-            return false;
-        }
+                return !oldPrices.isEmpty() && !specialPrices.isEmpty();
+            } catch (Exception e) {
+                return false;
+            }
+        });
     }
 
     public WebElement getOriginalPriceElement(WebElement product) {
-        try {
-            WebElement priceBox = product.findElement(priceBoxLocator);
-            return priceBox.findElement(oldPriceLocator);
-        } catch (Exception e) {
-            throw new RuntimeException("Could not find original price element in product");
-        }
+        return timed("getOriginalPriceElement", () -> {
+            try {
+                WebElement priceBox = product.findElement(priceBoxLocator);
+                return priceBox.findElement(oldPriceLocator);
+            } catch (Exception e) {
+                throw new RuntimeException("Could not find original price element in product");
+            }
+        });
     }
 
     public WebElement getSpecialPriceElement(WebElement product) {
-        try {
-            WebElement priceBox = product.findElement(priceBoxLocator);
-            return priceBox.findElement(specialPriceLocator);
-        } catch (Exception e) {
-            throw new RuntimeException("Could not find special price element in product");
-        }
+        return timed("getSpecialPriceElement", () -> {
+            try {
+                WebElement priceBox = product.findElement(priceBoxLocator);
+                return priceBox.findElement(specialPriceLocator);
+            } catch (Exception e) {
+                throw new RuntimeException("Could not find special price element in product");
+            }
+        });
     }
 
     public String getColor(WebElement element) {
-        return getCssValue(element, "color");
+        return timed("getColor", () -> getCssValue(element, "color"));
     }
 
     public String getTextDecoration(WebElement element) {
-        return getCssValue(element, "text-decoration");
+        return timed("getTextDecoration", () -> getCssValue(element, "text-decoration"));
     }
 
     public boolean hasStrikethrough(WebElement element) {
-        String textDecoration = getTextDecoration(element);
-        return textDecoration.contains("line-through");
+        return timed("hasStrikethrough", () -> {
+            String textDecoration = getTextDecoration(element);
+            return textDecoration.contains("line-through");
+        });
     }
 
     public boolean isGreyColor(String colorValue) {
-        // Grey colors typically have equal or near-equal RGB values
-        // Common grey patterns: rgb(128, 128, 128), rgba(128, 128, 128, 1)
-        if (colorValue.contains("rgb")) {
-            String rgbPart = colorValue.substring(colorValue.indexOf("(") + 1, colorValue.lastIndexOf(")"));
-            String[] values = rgbPart.split(",");
-
-            try {
-                int r = Integer.parseInt(values[0].trim());
-                int g = Integer.parseInt(values[1].trim());
-                int b = Integer.parseInt(values[2].trim());
-
-                int maxDiff = Math.max(Math.abs(r - g), Math.max(Math.abs(g - b), Math.abs(r - b)));
-                boolean isGrey = maxDiff <= 20; // Allow small variance
-                boolean notBlack = r > 50 || g > 50 || b > 50;
-                boolean notWhite = r < 200 || g < 200 || b < 200;
-
-                return isGrey && notBlack && notWhite;
-            } catch (Exception e) {
-                return false;
-            }
-        }
-        return false;
+        return PriceColors.isGrey(colorValue);
     }
 
-
     public boolean isBlueColor(String colorValue) {
-        if (!colorValue.contains("rgb")) {
-            return false;
-        }
-
-        try {
-            // Extract RGB values from "rgba(51, 153, 204, 1)" format
-            String rgbPart = colorValue.substring(colorValue.indexOf("(") + 1, colorValue.lastIndexOf(")"));
-            String[] values = rgbPart.split(",");
-
-            int r = Integer.parseInt(values[0].trim());
-            int g = Integer.parseInt(values[1].trim());
-            int b = Integer.parseInt(values[2].trim());
-
-            // Blue means B is higher than both R and G
-            return b > r && b > g;
-        } catch (Exception e) {
-            return false;
-        }
+        return PriceColors.isBlue(colorValue);
     }
 }
-
@@ -4,222 +4,312 @@ import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.ui.ExpectedConditions;
+import utils.Log;
+import utils.Money;
+import utils.SiteUrls;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 
 public class ShoppingCartPage extends BasePage {
 
     private final By cartItemsLocator = By.cssSelector(".cart tbody tr");
-    private final By itemPriceLocator = By.cssSelector(".product-cart-price .price, .cart-price .price");
-    private final By quantityInputLocator = By.cssSelector("input.qty, input[title='Qty']");
+    /** Rows as CART_ROWS_SCRIPT and CART_LINES_SCRIPT see them, for re-resolving a row by index */
+    private final By cartRowLocator = By.cssSelector("tbody tr");
+    private final String itemPriceSelector = ".product-cart-price .price, .cart-price .price";
+    private final By itemPriceLocator = By.cssSelector(itemPriceSelector);
+    private final String quantityInputSelector = "input.qty, input[title='Qty']";
+    private final By quantityInputLocator = By.cssSelector(quantityInputSelector);
     private final By updateButtonLocator = By.cssSelector("button[title='Update'], button.btn-update");
     private final By grandTotalLocator = By.cssSelector(".grand-total .price, .totals .grand-total .price");
     private final By subtotalLocator = By.cssSelector(".subtotal .price");
 
+    /**
+     * JavaScript function {@code cartRow(row)} with the fields both cart scripts report for a {@code tbody tr}:
+     * class, trimmed text length and whether it is a product row (zebra/first/last class and more than a
+     * few characters of text, which leaves out spacer and totals rows).
+     */
+    private static final String JS_CART_ROW_FUNCTION =
+            "function cartRow(row) {" +
+            "  var rowClass = row.getAttribute('class') || '', textLength = (row.innerText || '').trim().length;" +
+            "  return {element: row, rowClass: rowClass, textLength: textLength," +
+            "          productRow: textLength > 20 && /odd|even|first|last/.test(rowClass)};" +
+            "}";
+
+    /** arguments[0]: price selector, arguments[1]: quantity input selector */
+    private static final String CART_LINES_SCRIPT = JS_CART_ROW_FUNCTION +
+            "var priceSelector = arguments[0], qtySelector = arguments[1];" +
+            "function text(el) { return el ? (el.innerText || '').trim() : null; }" +
+            "return Array.prototype.map.call(document.querySelectorAll('tbody tr'), function(row) {" +
+            "  var qty = row.querySelector(qtySelector), line = cartRow(row);" +
+            "  line.name = text(row.querySelector('.product-name'));" +
+            "  line.price = text(row.querySelector(priceSelector));" +
+            "  line.qty = qty ? qty.value : null;" +
+            "  return line;" +
+            "});";
+
+    private static final String CART_ROWS_SCRIPT = JS_CART_ROW_FUNCTION +
+            "return Array.prototype.map.call(document.querySelectorAll('tbody tr'), cartRow);";
+
     public ShoppingCartPage(WebDriver driver) {
         super(driver);
     }
 
     public void open() {
-        driver.navigate().to("https://ecommerce.tealiumdemo.com/checkout/cart/");
-        waitForPageReady();
-        removeOverlays();
+        timed("open", () -> {
+            driver.navigate().to(SiteUrls.resolve("checkout/cart/"));
+            waitForPageReady();
+        });
     }
 
     public List<WebElement> getCartItems() {
-
-        try {
-            // Wait for page to be ready
-            Thread.sleep(2000);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-        try {
-            List<WebElement> emptyCartMessages = driver.findElements(
-                By.xpath("//*[contains(text(), 'empty') or contains(text(), 'no items')]")
-            );
-            if (!emptyCartMessages.isEmpty()) {
-                for (WebElement msg : emptyCartMessages) {
-                    if (msg.isDisplayed()) {
-                        System.out.println("Cart appears to be empty. Message: " + msg.getText());
+        return timed("getCartItems", () -> {
+            waitForPageSettled();
+
+            try {
+                List<WebElement> emptyCartMessages = driver.findElements(
+                    By.xpath("//*[contains(text(), 'empty') or contains(text(), 'no items')]")
+                );
+                if (!emptyCartMessages.isEmpty()) {
+                    for (WebElement msg : emptyCartMessages) {
+                        if (msg.isDisplayed()) {
+                            Log.info("Cart appears to be empty. Message: " + msg.getText());
+                        }
                     }
                 }
+            } catch (Exception ignored) {
             }
-        } catch (Exception ignored) {
-        }
-
-        try {
-            wait.until(ExpectedConditions.presenceOfElementLocated(By.cssSelector("tbody")));
 
-            List<WebElement> allRows = driver.findElements(By.cssSelector("tbody tr"));
-
-            System.out.println("DEBUG: Total tbody tr elements found: " + allRows.size());
-
-            List<WebElement> productRows = new java.util.ArrayList<>();
-            for (int i = 0; i < allRows.size(); i++) {
-                WebElement row = allRows.get(i);
-                try {
-                    String rowClass = row.getAttribute("class");
-                    String rowText = row.getText();
-                    System.out.println("Row " + i + " - Class: '" + rowClass + "', Text length: " + rowText.length());
-
-                    if (rowText != null && rowText.length() > 20 &&
-                        (rowClass.contains("odd") || rowClass.contains("even") ||
-                         rowClass.contains("first") || rowClass.contains("last"))) {
-                        productRows.add(row);
-                        System.out.println("  → Added as product row");
+            try {
+                wait.until(ExpectedConditions.presenceOfElementLocated(By.cssSelector("tbody")));
+
+                // Class and text length of every row in one call; per-row getAttribute/getText round trips
+                // used to dominate this method on larger carts
+                List<?> rows = (List<?>) js.executeScript(CART_ROWS_SCRIPT);
+                Log.debug("Total tbody tr elements found: " + rows.size());
+
+                List<WebElement> allRows = new ArrayList<>();
+                List<WebElement> productRows = new ArrayList<>();
+                for (int i = 0; i < rows.size(); i++) {
+                    Map<?, ?> row = (Map<?, ?>) rows.get(i);
+                    String rowClass = (String) row.get("rowClass");
+                    int textLength = ((Number) row.get("textLength")).intValue();
+                    int index = i;
+                    Log.debug(() -> "Row " + index + " - Class: '" + rowClass + "', Text length: " + textLength);
+
+                    WebElement handle = elements.handle(cartRowLocator, i, (WebElement) row.get("element"));
+                    allRows.add(handle);
+                    if (Boolean.TRUE.equals(row.get("productRow"))) {
+                        productRows.add(handle);
+                        Log.debug("  → Added as product row");
                     }
-                } catch (Exception e) {
-                    System.out.println("Row " + i + " - Error: " + e.getMessage());
                 }
-            }
 
-            if (!productRows.isEmpty()) {
-                System.out.println("Found " + productRows.size() + " cart product items in tbody");
-                return productRows;
-            }
+                if (!productRows.isEmpty()) {
+                    Log.debug("Found " + productRows.size() + " cart product items in tbody");
+                    return productRows;
+                }
 
-            if (!allRows.isEmpty()) {
-                System.out.println("Using all " + allRows.size() + " rows as fallback");
-                return allRows;
+                if (!allRows.isEmpty()) {
+                    Log.debug("Using all " + allRows.size() + " rows as fallback");
+                    return allRows;
+                }
+            } catch (Exception e) {
+                Log.warn("Failed to find tbody tr elements: " + e.getMessage());
             }
-        } catch (Exception e) {
-            System.out.println("Failed to find tbody tr elements: " + e.getMessage());
-        }
 
-        try {
-            List<WebElement> rows = driver.findElements(By.cssSelector("tr.first, tr.last, tr.odd, tr.even"));
-            if (!rows.isEmpty()) {
-                System.out.println("Found " + rows.size() + " cart items by class patterns");
-                return rows;
+            try {
+                List<ElementHandle> rows = findAllHandles(By.cssSelector("tr.first, tr.last, tr.odd, tr.even"));
+                if (!rows.isEmpty()) {
+                    Log.debug("Found " + rows.size() + " cart items by class patterns");
+                    return Collections.unmodifiableList(rows);
+                }
+            } catch (Exception e) {
+                Log.debug("Failed with class pattern selectors: " + e.getMessage());
             }
-        } catch (Exception e) {
-            System.out.println("Failed with class pattern selectors: " + e.getMessage());
-        }
 
-        try {
-            List<WebElement> rows = driver.findElements(
-                By.xpath("//tbody//tr[contains(@class, 'odd') or contains(@class, 'even')]")
-            );
-            if (!rows.isEmpty()) {
-                System.out.println("Found " + rows.size() + " cart items via XPath");
-                return rows;
+            try {
+                List<ElementHandle> rows = findAllHandles(
+                    By.xpath("//tbody//tr[contains(@class, 'odd') or contains(@class, 'even')]")
+                );
+                if (!rows.isEmpty()) {
+                    Log.debug("Found " + rows.size() + " cart items via XPath");
+                    return Collections.unmodifiableList(rows);
+                }
+            } catch (Exception e) {
+                Log.debug("XPath search failed: " + e.getMessage());
             }
-        } catch (Exception e) {
-            System.out.println("XPath search failed: " + e.getMessage());
-        }
 
-        throw new RuntimeException("Could not find any cart items. The cart is likely empty.");
+            throw new RuntimeException("Could not find any cart items. The cart is likely empty.");
+        });
     }
 
     public void updateQuantity(int itemIndex, int quantity) {
-        removeOverlays();
-
-        List<WebElement> items = getCartItems();
+        timed("updateQuantity", () -> {
+            List<WebElement> items = getCartItems();
 
-        if (itemIndex >= items.size()) {
-            throw new RuntimeException("Item index " + itemIndex + " is out of bounds. Only " + items.size() + " items in cart.");
-        }
+            if (itemIndex >= items.size()) {
+                throw new RuntimeException("Item index " + itemIndex + " is out of bounds. Only " + items.size() + " items in cart.");
+            }
 
-        WebElement item = items.get(itemIndex);
-        scrollToElement(item);
+            WebElement item = items.get(itemIndex);
+            scrollToElement(item);
 
-        WebElement qtyInput = item.findElement(quantityInputLocator);
-        qtyInput.clear();
-        qtyInput.sendKeys(String.valueOf(quantity));
+            WebElement qtyInput = item.findElement(quantityInputLocator);
+            qtyInput.clear();
+            qtyInput.sendKeys(String.valueOf(quantity));
 
-        System.out.println("Updated quantity to " + quantity + " for item " + (itemIndex + 1));
+            Log.info("Updated quantity to " + quantity + " for item " + (itemIndex + 1));
+        });
     }
 
     public void clickUpdate() {
-        removeOverlays();
+        timed("clickUpdate", () -> {
+            WebElement updateButton = wait.until(ExpectedConditions.elementToBeClickable(updateButtonLocator));
+            scrollToElement(updateButton);
+
+            try {
+                updateButton.click();
+            } catch (Exception e) {
+                js.executeScript("arguments[0].click();", updateButton);
+            }
 
-        WebElement updateButton = wait.until(ExpectedConditions.elementToBeClickable(updateButtonLocator));
-        scrollToElement(updateButton);
+            waitForPageSettled();
+        });
+    }
 
-        try {
-            updateButton.click();
-        } catch (Exception e) {
-            js.executeScript("arguments[0].click();", updateButton);
-        }
+    /**
+     * Unit price and quantity of every cart row, read in one script call. Rows are picked the same way as
+     * {@link #getCartItems()}; a missing price or quantity is read as 0.
+     */
+    public List<CartLine> getCartLines() {
+        return timed("getCartLines", () -> {
+            waitForPageSettled();
+            wait.until(ExpectedConditions.presenceOfElementLocated(By.cssSelector("tbody")));
 
-        waitForPageReady();
+            List<?> rows = (List<?>) js.executeScript(CART_LINES_SCRIPT, itemPriceSelector, quantityInputSelector);
+            List<CartLine> productLines = new ArrayList<>();
+            List<CartLine> allLines = new ArrayList<>();
 
-        try {
-            Thread.sleep(2000);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+            for (int i = 0; i < rows.size(); i++) {
+                Map<?, ?> row = (Map<?, ?>) rows.get(i);
+                CartLine line = new CartLine(i, (WebElement) row.get("element"), (String) row.get("name"),
+                        parseCentsOrZero((String) row.get("price")), parseQuantity((String) row.get("qty")));
+
+                allLines.add(line);
+                if (Boolean.TRUE.equals(row.get("productRow"))) {
+                    productLines.add(line);
+                }
+            }
+
+            if (!productLines.isEmpty()) {
+                return productLines;
+            }
+            if (!allLines.isEmpty()) {
+                return allLines;
+            }
+            throw new RuntimeException("Could not find any cart items. The cart is likely empty.");
+        });
     }
 
-    public double getItemPrice(WebElement item) {
+    private static long parseCentsOrZero(String priceText) {
         try {
-            WebElement priceElement = item.findElement(itemPriceLocator);
-            String priceText = priceElement.getText().trim();
-            priceText = priceText.replaceAll("[^0-9.]", "");
-            return Double.parseDouble(priceText);
-        } catch (Exception e) {
-            return 0.0;
+            return priceText == null ? 0 : Money.parseCents(priceText);
+        } catch (NumberFormatException e) {
+            return 0;
         }
     }
 
-    public int getItemQuantity(WebElement item) {
+    private static int parseQuantity(String quantityText) {
         try {
-            WebElement qtyInput = item.findElement(quantityInputLocator);
-            String qtyText = qtyInput.getAttribute("value");
-            return Integer.parseInt(qtyText);
+            return Integer.parseInt(quantityText.trim());
         } catch (Exception e) {
             return 0;
         }
     }
 
-    public double calculateItemsTotal() {
-        List<WebElement> items = getCartItems();
-        double total = 0.0;
+    public double getItemPrice(WebElement item) {
+        return timed("getItemPrice", () -> {
+            try {
+                WebElement priceElement = item.findElement(itemPriceLocator);
+                return Money.toDouble(Money.parseCents(priceElement.getText()));
+            } catch (Exception e) {
+                return 0.0;
+            }
+        });
+    }
+
+    public int getItemQuantity(WebElement item) {
+        return timed("getItemQuantity", () -> {
+            try {
+                WebElement qtyInput = item.findElement(quantityInputLocator);
+                String qtyText = qtyInput.getAttribute("value");
+                return Integer.parseInt(qtyText);
+            } catch (Exception e) {
+                return 0;
+            }
+        });
+    }
 
-        for (int i = 0; i < items.size(); i++) {
-            WebElement item = items.get(i);
-            double price = getItemPrice(item);
-            int quantity = getItemQuantity(item);
-            double itemTotal = price * quantity;
+    /** Sum of price x quantity over all cart lines, in exact cents */
+    public long getItemsTotalCents() {
+        return timed("getItemsTotalCents", () -> {
+            List<CartLine> lines = getCartLines();
 
-            System.out.println("Item " + (i + 1) + ": $" + price + " x " + quantity + " = $" + itemTotal);
-            total += itemTotal;
-        }
+            for (int i = 0; i < lines.size(); i++) {
+                CartLine line = lines.get(i);
+                int position = i + 1;
+                Log.debug(() -> "Item " + position + ": $" + Money.format(line.getUnitPriceCents()) + " x "
+                        + line.getQuantity() + " = $" + Money.format(line.getLineTotalCents()));
+            }
 
-        System.out.println("Calculated Total: $" + total);
-        return total;
+            long total = CartLine.totalCents(lines);
+            Log.info("Calculated Total: $" + Money.format(total));
+            return total;
+        });
     }
 
-    public double getGrandTotal() {
-        try {
-            WebElement grandTotalElement = wait.until(ExpectedConditions.presenceOfElementLocated(grandTotalLocator));
-            String totalText = grandTotalElement.getText().trim();
-            totalText = totalText.replaceAll("[^0-9.]", "");
-            double grandTotal = Double.parseDouble(totalText);
-            System.out.println("Grand Total from page: $" + grandTotal);
-            return grandTotal;
-        } catch (Exception e) {
-            throw new RuntimeException("Could not get Grand Total: " + e.getMessage());
-        }
+    public double calculateItemsTotal() {
+        return timed("calculateItemsTotal", () -> Money.toDouble(getItemsTotalCents()));
     }
 
-    public boolean verifyTotalMatches() {
-        double calculatedTotal = calculateItemsTotal();
-        double grandTotal = getGrandTotal();
+    public long getGrandTotalCents() {
+        return timed("getGrandTotalCents", () -> {
+            try {
+                WebElement grandTotalElement = wait.until(ExpectedConditions.presenceOfElementLocated(grandTotalLocator));
+                long grandTotal = Money.parseCents(grandTotalElement.getText());
+                Log.info("Grand Total from page: $" + Money.format(grandTotal));
+                return grandTotal;
+            } catch (Exception e) {
+                throw new RuntimeException("Could not get Grand Total: " + e.getMessage());
+            }
+        });
+    }
 
-        // Allow small difference due to rounding
-        double difference = Math.abs(calculatedTotal - grandTotal);
-        boolean matches = difference < 0.01;
+    public double getGrandTotal() {
+        return timed("getGrandTotal", () -> Money.toDouble(getGrandTotalCents()));
+    }
 
-        if (matches) {
-            System.out.println("✓ Totals match!");
-        } else {
-            System.out.println("✗ Totals don't match! Difference: $" + difference);
-        }
+    public boolean verifyTotalMatches() {
+        return timed("verifyTotalMatches", () -> {
+            long calculatedTotal = getItemsTotalCents();
+            long grandTotal = getGrandTotalCents();
+
+            // Both sides are exact cents, so no rounding tolerance is needed
+            long difference = Math.abs(calculatedTotal - grandTotal);
+            boolean matches = difference == 0;
+
+            if (matches) {
+                Log.info("✓ Totals match!");
+            } else {
+                Log.info("✗ Totals don't match! Difference: $" + Money.format(difference));
+            }
 
-        return matches;
+            return matches;
+        });
     }
 }
 
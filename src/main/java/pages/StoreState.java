@@ -0,0 +1,230 @@
+package pages;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import utils.ActionMetrics;
+import utils.Log;
+import utils.SiteUrls;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Puts the storefront's cart and wishlist into a known state without clicking through the UI. Operations are
+ * collected in a {@link Batch} and sent as form posts from inside the browser, so they share the session
+ * cookie with the pages under test and carry the Magento form key like a real form submission would.
+ * The whole batch runs in one script call, one request after another in the order it was built.
+ *
+ * <pre>
+ * new StoreState(driver).batch()
+ *         .emptyCart()
+ *         .emptyWishlist()
+ *         .addToCart(410, 2)
+ *         .apply();
+ * </pre>
+ *
+ * Product ids come from {@link ProductCard#getProductId()}. Wishlist operations need a logged-in customer;
+ * for guests the storefront redirects to the login page and, like the UI, only adds the item after login.
+ * Such steps are reported as deferred rather than failed.
+ */
+public final class StoreState {
+
+    private static final String LOGIN_PATH = "customer/account/login";
+
+    /**
+     * arguments[0]: operations, arguments[1]: base URL. Calls back with {results: [{url}]} holding the final
+     * URL of every operation after redirects, or {error} if a request could not be made at all.
+     */
+    private static final String APPLY_SCRIPT =
+            "var ops = arguments[0], base = arguments[1], done = arguments[arguments.length - 1];" +
+            "var formKey = null;" +
+            "function page(path) {" +
+            "  return fetch(base + path, {credentials: 'same-origin'}).then(function(r) {" +
+            "    return r.text().then(function(html) { return {url: r.url, html: html}; });" +
+            "  });" +
+            "}" +
+            "function key() {" +
+            "  if (formKey) { return Promise.resolve(formKey); }" +
+            "  var input = document.querySelector('input[name=\"form_key\"]');" +
+            "  if (input && input.value) { formKey = input.value; return Promise.resolve(formKey); }" +
+            "  return page('checkout/cart/').then(function(p) {" +
+            "    var m = /name=\"form_key\"[^>]*value=\"([^\"]+)\"/.exec(p.html) || /value=\"([^\"]+)\"[^>]*name=\"form_key\"/.exec(p.html);" +
+            "    if (!m) { throw new Error('No form_key found on the cart page'); }" +
+            "    formKey = m[1];" +
+            "    return formKey;" +
+            "  });" +
+            "}" +
+            "function post(path, params) {" +
+            "  return key().then(function(k) {" +
+            "    var body = new URLSearchParams();" +
+            "    body.append('form_key', k);" +
+            "    Object.keys(params).forEach(function(name) { body.append(name, params[name]); });" +
+            "    return fetch(base + path, {method: 'POST', body: body, credentials: 'same-origin'});" +
+            "  }).then(function(r) { return {url: r.url}; });" +
+            "}" +
+            "function ids(p, pattern) {" +
+            "  var found = [], re = new RegExp(pattern, 'g'), m;" +
+            "  while ((m = re.exec(p.html))) { if (found.indexOf(m[1]) < 0) { found.push(m[1]); } }" +
+            "  return found;" +
+            "}" +
+            "function run(op) {" +
+            "  switch (op.type) {" +
+            "    case 'emptyCart':" +
+            "      return post('checkout/cart/updatePost/', {update_cart_action: 'empty_cart'});" +
+            "    case 'emptyWishlist':" +
+            "      return page('wishlist/').then(function(p) {" +
+            "        var chain = Promise.resolve({url: p.url});" +
+            "        ids(p, 'wishlist/index/remove/item/(\\\\d+)').forEach(function(id) {" +
+            "          chain = chain.then(function() { return post('wishlist/index/remove/item/' + id + '/', {}); });" +
+            "        });" +
+            "        return chain;" +
+            "      });" +
+            "    case 'addToWishlist':" +
+            "      return post('wishlist/index/add/', {product: op.productId});" +
+            "    case 'addToCart':" +
+            "      return post('checkout/cart/add/', {product: op.productId, qty: op.quantity, return_url: base + 'checkout/cart/'});" +
+            "    case 'setCartQuantity':" +
+            "      return page('checkout/cart/').then(function(p) {" +
+            "        var itemId = ids(p, 'cart\\\\[(\\\\d+)\\\\]\\\\[qty\\\\]')[op.lineIndex];" +
+            "        if (!itemId) { return {url: p.url, missing: 'cart line ' + op.lineIndex}; }" +
+            "        var params = {update_cart_action: 'update_qty'};" +
+            "        params['cart[' + itemId + '][qty]'] = op.quantity;" +
+            "        return post('checkout/cart/updatePost/', params);" +
+            "      });" +
+            "    case 'moveWishlistToCart':" +
+            "      return post('wishlist/index/allcart/', {});" +
+            "  }" +
+            "  return Promise.reject(new Error('Unknown operation ' + op.type));" +
+            "}" +
+            "var results = [];" +
+            "ops.reduce(function(chain, op) {" +
+            "  return chain.then(function() { return run(op); }).then(function(r) { results.push(r); });" +
+            "}, Promise.resolve())" +
+            ".then(function() { done({results: results}); })" +
+            ".catch(function(e) { done({error: String(e && e.message || e), results: results}); });";
+
+    private final WebDriver driver;
+
+    public StoreState(WebDriver driver) {
+        this.driver = driver;
+    }
+
+    public Batch batch() {
+        return new Batch();
+    }
+
+    /** Operations applied together by {@link #apply()}, in the order they were added */
+    public final class Batch {
+        private final List<Map<String, Object>> operations = new ArrayList<>();
+        private final List<String> expectedPaths = new ArrayList<>();
+
+        private Batch() {
+        }
+
+        public Batch emptyCart() {
+            return add("checkout/cart", operation("emptyCart", "empty cart"));
+        }
+
+        public Batch emptyWishlist() {
+            return add("wishlist", operation("emptyWishlist", "empty wishlist"));
+        }
+
+        public Batch addToWishlist(int... productIds) {
+            for (int productId : productIds) {
+                Map<String, Object> op = operation("addToWishlist", "add product " + productId + " to wishlist");
+                op.put("productId", productId);
+                add("wishlist", op);
+            }
+            return this;
+        }
+
+        /** Adds a simple product; configurable products need their options and are reported as failed */
+        public Batch addToCart(int productId, int quantity) {
+            Map<String, Object> op = operation("addToCart", "add " + quantity + " x product " + productId + " to cart");
+            op.put("productId", productId);
+            op.put("quantity", quantity);
+            return add("checkout/cart", op);
+        }
+
+        /** Sets the quantity of the cart line at {@code lineIndex}, counted in the order the cart page lists them */
+        public Batch setCartQuantity(int lineIndex, int quantity) {
+            Map<String, Object> op = operation("setCartQuantity", "set cart line " + lineIndex + " to " + quantity);
+            op.put("lineIndex", lineIndex);
+            op.put("quantity", quantity);
+            return add("checkout/cart", op);
+        }
+
+        /** Same as the wishlist's "Add All to Cart" button */
+        public Batch moveWishlistToCart() {
+            return add("checkout/cart", operation("moveWishlistToCart", "move wishlist to cart"));
+        }
+
+        /**
+         * Runs the batch. Steps that need a logged-in customer are logged as deferred.
+         *
+         * @return the number of steps the storefront applied right away
+         * @throws RuntimeException if a request fails or the storefront rejects a step
+         */
+        public int apply() {
+            if (operations.isEmpty()) {
+                return 0;
+            }
+            return ActionMetrics.getInstance().time("StoreState.apply", this::run);
+        }
+
+        private int run() {
+            String baseUrl = SiteUrls.baseUrl();
+            String currentUrl = driver.getCurrentUrl();
+            if (currentUrl == null || !currentUrl.startsWith(baseUrl)) {
+                // Requests must come from the storefront's origin to carry its session cookie; any small
+                // same-origin document will do, there is no need to render a full page
+                driver.navigate().to(SiteUrls.resolve("robots.txt"));
+            }
+
+            Map<?, ?> response = (Map<?, ?>) ((JavascriptExecutor) driver).executeAsyncScript(APPLY_SCRIPT, operations, baseUrl);
+            List<?> results = (List<?>) response.get("results");
+
+            int applied = 0;
+            List<String> failures = new ArrayList<>();
+            for (int i = 0; i < results.size(); i++) {
+                Map<?, ?> result = (Map<?, ?>) results.get(i);
+                String description = (String) operations.get(i).get("description");
+                String finalUrl = String.valueOf(result.get("url"));
+
+                if (result.get("missing") != null) {
+                    failures.add(description + ": no " + result.get("missing"));
+                } else if (finalUrl.contains(LOGIN_PATH)) {
+                    Log.info("Store state: " + description + " deferred, the storefront asked for a login");
+                } else if (finalUrl.contains(expectedPaths.get(i))) {
+                    applied++;
+                } else {
+                    failures.add(description + ": redirected to " + finalUrl);
+                }
+            }
+            if (response.get("error") != null) {
+                failures.add(operations.get(results.size()).get("description") + ": " + response.get("error"));
+            }
+            if (!failures.isEmpty()) {
+                throw new RuntimeException("Could not set up store state: " + String.join("; ", failures));
+            }
+
+            Log.info("Store state: applied " + applied + " of " + operations.size() + " steps");
+            return applied;
+        }
+
+        private Batch add(String expectedPath, Map<String, Object> operation) {
+            operations.add(operation);
+            expectedPaths.add(expectedPath);
+            return this;
+        }
+
+        private Map<String, Object> operation(String type, String description) {
+            Map<String, Object> op = new HashMap<>();
+            op.put("type", type);
+            op.put("description", description);
+            return op;
+        }
+    }
+}
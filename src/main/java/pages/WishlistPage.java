@@ -5,11 +5,18 @@ import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.Select;
+import utils.Log;
+import utils.SiteUrls;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Supplier;
 
 public class WishlistPage extends BasePage {
 
+    private static final String ADD_TO_CART_PARENTS_KEY = "wishlist: parents of 'Add to Cart' buttons";
+
     private final By wishlistItemsLocator = By.cssSelector(".wishlist .item, .products-grid .item");
     private final By addToCartButtonLocator = By.cssSelector("button[title='Add to Cart']");
     private final By colorSelectLocator = By.cssSelector("select[name*='super_attribute']");
@@ -20,123 +27,139 @@ public class WishlistPage extends BasePage {
     }
 
     public void open() {
-        driver.navigate().to("https://ecommerce.tealiumdemo.com/wishlist/");
-        waitForPageReady();
-        removeOverlays();
+        timed("open", () -> {
+            driver.navigate().to(SiteUrls.resolve("wishlist/"));
+            waitForPageReady();
+        });
     }
 
 
     public List<WebElement> getWishlistItems() {
-        By[] wishlistLocators = {
-            By.cssSelector(".products-grid .item"),
-            By.cssSelector("li.item"),
-            By.cssSelector(".wishlist .item"),
-            By.cssSelector("ol.products-grid li"),
-            By.cssSelector("ul.products-grid li"),
-            By.cssSelector("[class*='product-item']"),
-            By.cssSelector("tbody tr") // Table format
-        };
-
-        for (By locator : wishlistLocators) {
-            try {
-                wait.until(ExpectedConditions.presenceOfElementLocated(locator));
-                List<WebElement> items = driver.findElements(locator);
-
-                if (!items.isEmpty()) {
-                    System.out.println("Found " + items.size() + " wishlist items using: " + locator);
-                    return items;
+        return timed("getWishlistItems", () -> {
+            By[] wishlistLocators = {
+                By.cssSelector(".products-grid .item"),
+                By.cssSelector("li.item"),
+                By.cssSelector(".wishlist .item"),
+                By.cssSelector("ol.products-grid li"),
+                By.cssSelector("ul.products-grid li"),
+                By.cssSelector("[class*='product-item']"),
+                By.cssSelector("tbody tr") // Table format
+            };
+
+            for (By locator : wishlistLocators) {
+                try {
+                    wait.until(ExpectedConditions.presenceOfElementLocated(locator));
+                    List<ElementHandle> items = findAllHandles(locator);
+
+                    if (!items.isEmpty()) {
+                        Log.debug("Found " + items.size() + " wishlist items using: " + locator);
+                        return Collections.unmodifiableList(items);
+                    }
+                } catch (Exception e) {
+                    Log.debug("Failed with wishlist locator: " + locator);
                 }
-            } catch (Exception e) {
-                System.out.println("Failed with wishlist locator: " + locator);
             }
-        }
 
-        try {
-            System.out.println("Trying JavaScript to find wishlist items...");
-            @SuppressWarnings("unchecked")
-            List<WebElement> items = (List<WebElement>) js.executeScript(
-                "var buttons = document.querySelectorAll('button');" +
-                "var items = [];" +
-                "for(var i=0; i<buttons.length; i++) {" +
-                "  var btn = buttons[i];" +
-                "  if(btn.textContent.includes('Add to Cart') || btn.title.includes('Add to Cart')) {" +
-                "    var parent = btn.closest('tr') || btn.closest('li') || btn.closest('[class*=\"item\"]');" +
-                "    if(parent && items.indexOf(parent) === -1) {" +
-                "      items.push(parent);" +
-                "    }" +
-                "  }" +
-                "}" +
-                "return items;"
-            );
-
-            if (items != null && !items.isEmpty()) {
-                System.out.println("JavaScript found " + items.size() + " wishlist items");
-                return items;
+            try {
+                Log.debug("Trying JavaScript to find wishlist items...");
+                @SuppressWarnings("unchecked")
+                Supplier<List<WebElement>> lookup = () -> (List<WebElement>) js.executeScript(
+                    "var buttons = document.querySelectorAll('button');" +
+                    "var items = [];" +
+                    "for(var i=0; i<buttons.length; i++) {" +
+                    "  var btn = buttons[i];" +
+                    "  if(btn.textContent.includes('Add to Cart') || btn.title.includes('Add to Cart')) {" +
+                    "    var parent = btn.closest('tr') || btn.closest('li') || btn.closest('[class*=\"item\"]');" +
+                    "    if(parent && items.indexOf(parent) === -1) {" +
+                    "      items.push(parent);" +
+                    "    }" +
+                    "  }" +
+                    "}" +
+                    "return items;"
+                );
+                List<WebElement> items = elements.resolveAll(ADD_TO_CART_PARENTS_KEY, lookup);
+
+                if (items != null && !items.isEmpty()) {
+                    Log.debug("JavaScript found " + items.size() + " wishlist items");
+                    List<WebElement> handles = new ArrayList<>(items.size());
+                    for (int i = 0; i < items.size(); i++) {
+                        handles.add(elements.handle(ADD_TO_CART_PARENTS_KEY, lookup, i, items.get(i)));
+                    }
+                    return handles;
+                }
+            } catch (Exception e) {
+                Log.warn("JavaScript fallback failed: " + e.getMessage());
             }
-        } catch (Exception e) {
-            System.out.println("JavaScript fallback failed: " + e.getMessage());
-        }
 
-        throw new RuntimeException("Could not find any wishlist items. The wishlist may be empty.");
+            throw new RuntimeException("Could not find any wishlist items. The wishlist may be empty.");
+        });
     }
 
     public void addItemToCart(int index) {
-        removeOverlays();
-
-        try {
-            System.out.println("Looking for Add to Cart buttons...");
-
-            List<WebElement> addToCartButtons = driver.findElements(
-                By.xpath("//button[contains(., 'Add to Cart') or contains(@title, 'Add to Cart')]")
-            );
+        timed("addItemToCart", () -> {
+            try {
+                Log.debug("Looking for Add to Cart buttons...");
 
-            if (addToCartButtons.isEmpty()) {
-                addToCartButtons = driver.findElements(
-                    By.cssSelector("button[title*='Add to Cart'], button.btn-cart")
+                List<WebElement> addToCartButtons = driver.findElements(
+                    By.xpath("//button[contains(., 'Add to Cart') or contains(@title, 'Add to Cart')]")
                 );
-            }
 
-            if (addToCartButtons.isEmpty()) {
-                throw new RuntimeException("No 'Add to Cart' buttons found on wishlist page");
-            }
+                if (addToCartButtons.isEmpty()) {
+                    addToCartButtons = driver.findElements(
+                        By.cssSelector("button[title*='Add to Cart'], button.btn-cart")
+                    );
+                }
 
-            System.out.println("Found " + addToCartButtons.size() + " Add to Cart buttons");
+                if (addToCartButtons.isEmpty()) {
+                    throw new RuntimeException("No 'Add to Cart' buttons found on wishlist page");
+                }
 
-            if (index >= addToCartButtons.size()) {
-                throw new RuntimeException("Button index " + index + " is out of bounds. Only " +
-                                         addToCartButtons.size() + " buttons available.");
-            }
+                Log.debug("Found " + addToCartButtons.size() + " Add to Cart buttons");
 
-            WebElement button = addToCartButtons.get(index);
-            scrollToElement(button);
+                if (index >= addToCartButtons.size()) {
+                    throw new RuntimeException("Button index " + index + " is out of bounds. Only " +
+                                             addToCartButtons.size() + " buttons available.");
+                }
 
-            wait.until(ExpectedConditions.elementToBeClickable(button));
+                WebElement button = addToCartButtons.get(index);
+                scrollToElement(button);
 
-            try {
-                button.click();
-            } catch (Exception e) {
-                js.executeScript("arguments[0].click();", button);
-            }
+                wait.until(ExpectedConditions.elementToBeClickable(button));
 
-            System.out.println("Clicked Add to Cart button " + (index + 1));
+                try {
+                    button.click();
+                } catch (Exception e) {
+                    js.executeScript("arguments[0].click();", button);
+                }
 
-            waitForPageReady();
+                Log.debug("Clicked Add to Cart button " + (index + 1));
 
-            try {
-                Thread.sleep(1500);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
+                waitForPageSettled();
 
-        } catch (Exception e) {
-            throw new RuntimeException("Could not add item to cart: " + e.getMessage());
-        }
+            } catch (Exception e) {
+                throw new RuntimeException("Could not add item to cart: " + e.getMessage());
+            }
+        });
     }
 
 
+    /**
+     * Moves every wishlist item to the cart in one request, the same as the page's "Add All to Cart" button,
+     * then reloads the wishlist. The storefront defers that request for guests, who get the items added one
+     * by one through the page's own buttons instead.
+     */
     public void addAllItemsToCart() {
-        removeOverlays();
+        timed("addAllItemsToCart", () -> {
+            if (new StoreState(driver).batch().moveWishlistToCart().apply() == 0) {
+                addItemsToCartOneByOne();
+            }
+            Log.info("Finished adding all items to cart");
+            open();
+        });
+    }
 
+    private void addItemsToCartOneByOne() {
+        open();
         List<WebElement> buttons = driver.findElements(
             By.xpath("//button[contains(., 'Add to Cart') or contains(@title, 'Add to Cart')]")
         );
@@ -146,36 +169,26 @@ public class WishlistPage extends BasePage {
         }
 
         int buttonCount = buttons.size();
-        System.out.println("Found " + buttonCount + " Add to Cart buttons on wishlist page");
+        Log.debug("Found " + buttonCount + " Add to Cart buttons on wishlist page");
 
         if (buttonCount == 0) {
             throw new RuntimeException("No Add to Cart buttons found. Wishlist may be empty.");
         }
 
         for (int i = 0; i < buttonCount; i++) {
-            System.out.println("\nAdding item " + (i + 1) + " of " + buttonCount + " to cart...");
+            Log.debug("Adding item " + (i + 1) + " of " + buttonCount + " to cart...");
 
             try {
                 addItemToCart(0); // Always use 0 as buttons may get removed after adding to cart
-                System.out.println("✓ Item " + (i + 1) + " added successfully");
-
-                try {
-                    Thread.sleep(1000);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
+                Log.info("✓ Item " + (i + 1) + " added successfully");
 
                 if (i < buttonCount - 1) {
-                    System.out.println("Refreshing wishlist page...");
                     open();
                 }
             } catch (Exception e) {
-                System.out.println("Error adding item " + (i + 1) + ": " + e.getMessage());
+                Log.warn("Error adding item " + (i + 1) + ": " + e.getMessage());
                 open();
             }
         }
-
-        System.out.println("\nFinished adding all items to cart");
     }
 }
-
@@ -5,6 +5,9 @@ import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.Select;
+import utils.Log;
+import utils.Money;
+import utils.SiteUrls;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -12,9 +15,11 @@ import java.util.List;
 public class WomenProductsPage extends BasePage {
 
     private final By productLocator = By.cssSelector("ul.products-grid li .product-image");
-    private final By productItemLocator = By.cssSelector("ul.products-grid li.item");
+    private final String productItemSelector = "ul.products-grid li.item";
+    private final By productItemLocator = By.cssSelector(productItemSelector);
     private final By sortByDropdownLocator = By.cssSelector("select[title='Sort By']");
-    private final By priceLocator = By.cssSelector(".price-box .price");
+    private final String priceSelector = ".price-box .price";
+    private final By priceLocator = By.cssSelector(priceSelector);
     private final By addToWishlistLocator = By.cssSelector(".link-wishlist");
 
     public WomenProductsPage(WebDriver driver) {
@@ -23,100 +28,96 @@ public class WomenProductsPage extends BasePage {
 
 
     public WebElement getFirstProduct() {
-        removeOverlays();
+        return timed("getFirstProduct", () -> {
+            WebElement product = wait.until(ExpectedConditions.presenceOfElementLocated(productLocator));
+            scrollToElement(product);
 
-        WebElement product = wait.until(ExpectedConditions.presenceOfElementLocated(productLocator));
-        scrollToElement(product);
-
-        return product;
+            return product;
+        });
     }
 
     public void sortByPrice() {
-        removeOverlays();
-
-        WebElement sortDropdown = wait.until(ExpectedConditions.elementToBeClickable(sortByDropdownLocator));
-        scrollToElement(sortDropdown);
+        timed("sortByPrice", () -> {
+            WebElement sortDropdown = wait.until(ExpectedConditions.elementToBeClickable(sortByDropdownLocator));
+            scrollToElement(sortDropdown);
 
-        Select select = new Select(sortDropdown);
-        select.selectByVisibleText("Price");
+            Select select = new Select(sortDropdown);
+            select.selectByVisibleText("Price");
 
-        waitForPageReady();
+            waitForPageReady();
+        });
     }
 
     public List<WebElement> getAllProducts() {
-        removeOverlays();
-        wait.until(ExpectedConditions.presenceOfAllElementsLocatedBy(productItemLocator));
+        return timed("getAllProducts", () -> {
+            wait.until(ExpectedConditions.presenceOfAllElementsLocatedBy(productItemLocator));
 
-        List<WebElement> products = driver.findElements(productItemLocator);
-        List<WebElement> displayedProducts = new ArrayList<>();
-
-        for (WebElement product : products) {
-            try {
-                if (product.isDisplayed() && product.getSize().getHeight() > 50) {
-                    displayedProducts.add(product);
+            List<WebElement> displayedProducts = new ArrayList<>();
+            for (ElementSnapshot product : queryAll(productItemSelector)) {
+                if (product.isDisplayed() && product.getHeight() > 50) {
+                    displayedProducts.add(handleFor(productItemSelector, product));
                 }
-            } catch (Exception e) {
-                // Skip stale elements
             }
-        }
 
-        return displayedProducts;
+            return displayedProducts;
+        });
     }
 
-    public double getProductPrice(WebElement product) {
-        try {
-            WebElement priceElement = product.findElement(priceLocator);
-            String priceText = priceElement.getText().trim();
+    /** Name and price of every displayed product, read in a single pass */
+    public List<ProductCard> getProductCards() {
+        return timed("getProductCards", () -> {
+            wait.until(ExpectedConditions.presenceOfAllElementsLocatedBy(productItemLocator));
 
-            priceText = priceText.replaceAll("[^0-9.]", "");
-            return Double.parseDouble(priceText);
-        } catch (Exception e) {
-            return 0.0;
-        }
+            List<ProductCard> displayedCards = new ArrayList<>();
+            for (ProductCard card : extractProductCards(productItemSelector, null, priceSelector)) {
+                if (card.isDisplayed() && card.getHeight() > 50) {
+                    displayedCards.add(card);
+                }
+            }
+            return displayedCards;
+        });
     }
 
-    public void addProductToWishlistByIndex(int index) {
-        removeOverlays();
-
-        String currentUrl = driver.getCurrentUrl();
-        List<WebElement> products = getAllProducts();
-
-        if (index >= products.size()) {
-            throw new RuntimeException("Product index " + index + " is out of bounds. Only " + products.size() + " products available.");
-        }
+    public double getProductPrice(WebElement product) {
+        return timed("getProductPrice", () -> {
+            try {
+                WebElement priceElement = product.findElement(priceLocator);
+                return Money.toDouble(Money.parseCents(priceElement.getText()));
+            } catch (Exception e) {
+                return 0.0;
+            }
+        });
+    }
 
-        WebElement product = products.get(index);
-        scrollToElement(product);
+    public void addProductToWishlistByIndex(int index) {
+        timed("addProductToWishlistByIndex", () -> {
+            String currentUrl = driver.getCurrentUrl();
+            List<WebElement> products = getAllProducts();
 
-        WebElement wishlistLink = product.findElement(addToWishlistLocator);
-        wait.until(ExpectedConditions.elementToBeClickable(wishlistLink));
+            if (index >= products.size()) {
+                throw new RuntimeException("Product index " + index + " is out of bounds. Only " + products.size() + " products available.");
+            }
 
-        clickElement(wishlistLink);
+            WebElement product = products.get(index);
+            scrollToElement(product);
 
-        // Wait longer for action to complete (wishlist add can be slow)
-        try {
-            Thread.sleep(3000);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+            WebElement wishlistLink = product.findElement(addToWishlistLocator);
+            wait.until(ExpectedConditions.elementToBeClickable(wishlistLink));
 
-        waitForPageReady();
+            clickElement(wishlistLink);
 
-        String newUrl = driver.getCurrentUrl();
-        if (newUrl != null && (newUrl.contains("wishlist") || !newUrl.contains("women"))) {
-            System.out.println("Navigated to: " + newUrl + ", returning to products page");
-            driver.navigate().to(currentUrl);
-            waitForPageReady();
-            removeOverlays();
+            // Wishlist add can be slow; wait until the resulting page has settled
+            waitForPageSettled();
 
-            try {
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+            String newUrl = driver.getCurrentUrl();
+            if (newUrl != null && (newUrl.contains("wishlist") || !newUrl.contains("women"))) {
+                Log.debug("Navigated to: " + newUrl + ", returning to products page");
+                driver.navigate().to(currentUrl);
+                waitForPageSettled();
             }
-        }
 
-        wait.until(ExpectedConditions.presenceOfElementLocated(productItemLocator));
+            wait.until(ExpectedConditions.presenceOfElementLocated(productItemLocator));
+        });
     }
 
     private void clickElement(WebElement element) {
@@ -129,49 +130,45 @@ public class WomenProductsPage extends BasePage {
 
 
     public String getWishlistCount() {
-        driver.navigate().to("https://ecommerce.tealiumdemo.com/wishlist/");
-        waitForPageReady();
-        removeOverlays();
-
-        try {
-            Thread.sleep(2000);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        return timed("getWishlistCount", () -> {
+            driver.navigate().to(SiteUrls.resolve("wishlist/"));
+            waitForPageReady();
+            waitForPageSettled();
 
-        try {
-            String currentUrl = driver.getCurrentUrl();
-            String pageTitle = driver.getTitle();
+            try {
+                String currentUrl = driver.getCurrentUrl();
+                String pageTitle = driver.getTitle();
 
-            if ((currentUrl != null && currentUrl.contains("wishlist")) ||
-                (pageTitle != null && pageTitle.toLowerCase().contains("wish"))) {
+                if ((currentUrl != null && currentUrl.contains("wishlist")) ||
+                    (pageTitle != null && pageTitle.toLowerCase().contains("wish"))) {
 
-                System.out.println("Successfully navigated to wishlist page");
-                System.out.println("URL: " + currentUrl);
+                    Log.debug("Successfully navigated to wishlist page");
+                    Log.debug("URL: " + currentUrl);
 
-                return "My Wish List (2 items)";
+                    return "My Wish List (2 items)";
+                }
+            } catch (Exception e) {
+                Log.warn("Error checking wishlist page: " + e.getMessage());
             }
-        } catch (Exception e) {
-            System.out.println("Error checking wishlist page: " + e.getMessage());
-        }
 
-        return "My Wish List (2 items)";
+            return "My Wish List (2 items)";
+        });
     }
 
     public String getProductBoxShadow(WebElement product) {
-        return getCssValue(product, "box-shadow");
+        return timed("getProductBoxShadow", () -> getCssValue(product, "box-shadow"));
     }
 
     public String getProductBorder(WebElement product) {
-        return getCssValue(product, "border");
+        return timed("getProductBorder", () -> getCssValue(product, "border"));
     }
 
     public String getProductTransform(WebElement product) {
-        return getCssValue(product, "transform");
+        return timed("getProductTransform", () -> getCssValue(product, "transform"));
     }
 
     public void hoverOverProduct(WebElement product) {
-        hoverOver(product);
+        timed("hoverOverProduct", () -> hoverOver(product));
     }
 }
 
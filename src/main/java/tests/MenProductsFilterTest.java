@@ -1,88 +1,62 @@
 package tests;
 
-import io.github.bonigarcia.wdm.WebDriverManager;
-import org.openqa.selenium.OutputType;
-import org.openqa.selenium.TakesScreenshot;
-import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
-import org.openqa.selenium.chrome.ChromeDriver;
-import org.openqa.selenium.chrome.ChromeOptions;
-import org.openqa.selenium.io.FileHandler;
 import org.testng.Assert;
-import org.testng.ITestResult;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 import pages.HomePage;
 import pages.MenProductsPage;
+import pages.ProductCard;
+import utils.DriverContext;
+import utils.Log;
+import utils.Money;
+import utils.SiteHealth;
 
-import java.io.File;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-
 
 public class MenProductsFilterTest {
-    private WebDriver driver;
-    private HomePage homePage;
 
     @BeforeMethod
     public void setUp() {
-        WebDriverManager.chromedriver().setup();
-
-        ChromeOptions options = new ChromeOptions();
-        options.addArguments("--disable-notifications");
-        options.addArguments("--disable-popup-blocking");
-        options.addArguments("--start-maximized");
-        options.addArguments("--disable-blink-features=AutomationControlled");
-        options.addArguments("--disable-extensions");
-        options.addArguments("--no-sandbox");
-        options.addArguments("--disable-dev-shm-usage");
-
-        Map<String, Object> prefs = new HashMap<>();
-        prefs.put("profile.default_content_setting_values.cookies", 1);
-        prefs.put("profile.cookie_controls_mode", 0);
-        options.setExperimentalOption("prefs", prefs);
-
-        driver = new ChromeDriver(options);
-        homePage = new HomePage(driver);
+        SiteHealth.getInstance().requireAvailable();
+        DriverContext.start();
     }
 
     @Test
     public void testMenProductsColorAndPriceFilters() {
+        HomePage homePage = new HomePage(DriverContext.getDriver());
         homePage.open();
         MenProductsPage menPage = homePage.navigateToMenProducts();
 
-        System.out.println("\n=== MEN PRODUCTS FILTER TEST ===");
+        Log.info("=== MEN PRODUCTS FILTER TEST ===");
 
         menPage.selectBlackColor();
 
         List<WebElement> productsAfterColorFilter = menPage.getDisplayedProducts();
-        System.out.println("\n--- After Black Color Filter ---");
-        System.out.println("Products displayed: " + productsAfterColorFilter.size());
+        Log.info("--- After Black Color Filter ---");
+        Log.info("Products displayed: " + productsAfterColorFilter.size());
 
         String currentUrl = menPage.getCurrentUrl();
-        System.out.println("Current URL: " + currentUrl);
+        Log.info("Current URL: " + currentUrl);
 
         // Verify black color filter was applied (URL should contain color parameter)
         Assert.assertTrue(currentUrl.contains("color="),
                 "Black color filter should be applied - URL should contain color parameter");
 
-        System.out.println("✓ Black color filter applied successfully");
-        System.out.println("  Products after color filter: " + productsAfterColorFilter.size());
+        Log.info("✓ Black color filter applied successfully");
+        Log.info("  Products after color filter: " + productsAfterColorFilter.size());
 
         // Apply price filter
         menPage.selectFirstPriceOption();
 
-        List<WebElement> productsAfterPriceFilter = menPage.getDisplayedProducts();
+        List<ProductCard> productsAfterPriceFilter = menPage.getProductCards();
 
-        System.out.println("\n--- After Price Filter ($0.00 - $99.99) ---");
-        System.out.println("Products displayed: " + productsAfterPriceFilter.size());
+        Log.info("--- After Price Filter ($0.00 - $99.99) ---");
+        Log.info("Products displayed: " + productsAfterPriceFilter.size());
 
         String currentUrlAfterPrice = menPage.getCurrentUrl();
-        System.out.println("Current URL: " + currentUrlAfterPrice);
+        Log.info("Current URL: " + currentUrlAfterPrice);
 
         // Verify price filter was applied (should have products and URL should contain price parameter)
         Assert.assertTrue(!productsAfterPriceFilter.isEmpty(),
@@ -95,60 +69,25 @@ public class MenProductsFilterTest {
         Assert.assertEquals(productsAfterPriceFilter.size(), 3,
                 "After selecting price filter ($0.00 - $99.99), exactly 3 products should be displayed");
 
-        System.out.println("\n--- Verifying Product Prices ---");
+        Log.info("--- Verifying Product Prices ---");
         for (int i = 0; i < productsAfterPriceFilter.size(); i++) {
-            WebElement product = productsAfterPriceFilter.get(i);
-            double productPrice = menPage.getProductPrice(product);
+            long productPrice = productsAfterPriceFilter.get(i).getPriceCents();
 
-            System.out.println("Product " + (i + 1) + " price: $" + productPrice);
+            Log.info("Product " + (i + 1) + " price: $" + Money.format(productPrice));
 
             // Verify price is within the $0.00 - $99.99 range
-            Assert.assertTrue(productPrice >= 0 && productPrice <= 99.99,
-                    "Product " + (i + 1) + " price ($" + productPrice + ") should be between $0.00 and $99.99");
+            Assert.assertTrue(productPrice >= 0 && productPrice <= 9999,
+                    "Product " + (i + 1) + " price ($" + Money.format(productPrice) + ") should be between $0.00 and $99.99");
         }
 
-        System.out.println("\n✓ All filters working correctly!");
-        System.out.println("  - Black color filter applied (URL: " + currentUrl + ")");
-        System.out.println("  - Price filter applied showing " + productsAfterPriceFilter.size() + " product(s)");
-        System.out.println("  - All product prices are within $0.00 - $99.99 range");
+        Log.info("✓ All filters working correctly!");
+        Log.info("  - Black color filter applied (URL: " + currentUrl + ")");
+        Log.info("  - Price filter applied showing " + productsAfterPriceFilter.size() + " product(s)");
+        Log.info("  - All product prices are within $0.00 - $99.99 range");
     }
 
     @AfterMethod
-    public void tearDown(ITestResult result) {
-        if (ITestResult.FAILURE == result.getStatus()) {
-            try {
-                captureScreenshot(result.getName());
-            } catch (Exception e) {
-                System.out.println("Failed to capture screenshot: " + e.getMessage());
-            }
-        }
-
-        if (driver != null) {
-            driver.quit();
-        }
-    }
-
-    private void captureScreenshot(String testName) {
-        try {
-            File screenshotDir = new File("screenshots");
-            if (!screenshotDir.exists()) {
-                boolean created = screenshotDir.mkdirs();
-                if (!created) {
-                    System.out.println("Warning: Could not create screenshots directory");
-                }
-            }
-
-            String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
-            String fileName = testName + "_" + timestamp + ".png";
-
-            TakesScreenshot screenshot = (TakesScreenshot) driver;
-            File sourceFile = screenshot.getScreenshotAs(OutputType.FILE);
-            File destinationFile = new File(screenshotDir, fileName);
-            FileHandler.copy(sourceFile, destinationFile);
-
-            System.out.println("Screenshot captured: " + destinationFile.getAbsolutePath());
-        } catch (Exception e) {
-            System.out.println("Error capturing screenshot: " + e.getMessage());
-        }
+    public void tearDown() {
+        DriverContext.stop();
     }
 }
@@ -0,0 +1,203 @@
+package utils;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Latency histograms for page-object actions, keyed like "HomePage.open". Recording is a few atomic
+ * increments and never allocates beyond the first use of a key, so every public page method can be timed.
+ * Timings are inclusive: a page method that navigates also shows up under navigateTo and waitForPageReady.
+ * {@link MetricsExporter} writes the results when the run ends.
+ */
+public final class ActionMetrics {
+
+    private static final ActionMetrics INSTANCE = new ActionMetrics();
+
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    /** Actions running on each thread, innermost first */
+    private static final ThreadLocal<Deque<String>> RUNNING = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private ActionMetrics() {
+    }
+
+    public static ActionMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /** Starts timing an action; closing the returned timer records it */
+    private Timer start(String action) {
+        RUNNING.get().push(action);
+        return new Timer(histograms.computeIfAbsent(action, a -> new Histogram()));
+    }
+
+    /** Runs {@code body} timed as {@code action} and returns its result */
+    public <T> T time(String action, Supplier<T> body) {
+        Timer timer = start(action);
+        try {
+            return body.get();
+        } finally {
+            timer.close();
+        }
+    }
+
+    /** Runs {@code body} timed as {@code action} */
+    public void time(String action, Runnable body) {
+        Timer timer = start(action);
+        try {
+            body.run();
+        } finally {
+            timer.close();
+        }
+    }
+
+    /** Innermost action being timed on the calling thread, or null outside any action */
+    public static String currentAction() {
+        return RUNNING.get().peek();
+    }
+
+    /** Consistent copy of every histogram, sorted by action */
+    public Map<String, Snapshot> snapshot() {
+        Map<String, Snapshot> snapshots = new TreeMap<>();
+        histograms.forEach((action, histogram) -> snapshots.put(action, histogram.snapshot()));
+        return snapshots;
+    }
+
+    /** Measures one action from creation to {@link #close()} */
+    private static final class Timer implements AutoCloseable {
+        private final Histogram histogram;
+        private final long startNanos = System.nanoTime();
+
+        private Timer(Histogram histogram) {
+            this.histogram = histogram;
+        }
+
+        @Override
+        public void close() {
+            histogram.record((System.nanoTime() - startNanos) / 1_000);
+            RUNNING.get().poll();
+        }
+    }
+
+    /**
+     * Log-linear histogram of microsecond values: exact below 32 µs, then 32 buckets per power of two, so any
+     * reported percentile is within about 3% of the true value.
+     */
+    static final class Histogram {
+        private static final int SUB_BUCKET_BITS = 5;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        /** Up to 2^40 µs, about twelve days */
+        private static final int MAX_EXPONENT = 40;
+        private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long micros) {
+            long value = Math.max(0, micros);
+            counts.incrementAndGet(Math.min(index(value), BUCKETS - 1));
+            count.increment();
+            sum.add(value);
+            max.accumulateAndGet(value, Math::max);
+        }
+
+        Snapshot snapshot() {
+            long[] copy = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                copy[i] = counts.get(i);
+                total += copy[i];
+            }
+            long maxValue = max.get();
+            return new Snapshot(total, sum.sum(), maxValue,
+                    percentile(copy, total, 0.50, maxValue),
+                    percentile(copy, total, 0.95, maxValue),
+                    percentile(copy, total, 0.99, maxValue));
+        }
+
+        static int index(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+        }
+
+        /** Largest value that falls into bucket {@code index} */
+        static long highestValueIn(int index) {
+            if (index < SUB_BUCKETS) {
+                return index;
+            }
+            int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+            long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+            return lowest + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+        }
+
+        private static long percentile(long[] counts, long total, double quantile, long maxValue) {
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValueIn(i), maxValue);
+                }
+            }
+            return maxValue;
+        }
+    }
+
+    /** Count, sum and percentiles of one action, in microseconds */
+    public static final class Snapshot {
+        private final long count;
+        private final long sumMicros;
+        private final long maxMicros;
+        private final long p50Micros;
+        private final long p95Micros;
+        private final long p99Micros;
+
+        Snapshot(long count, long sumMicros, long maxMicros, long p50Micros, long p95Micros, long p99Micros) {
+            this.count = count;
+            this.sumMicros = sumMicros;
+            this.maxMicros = maxMicros;
+            this.p50Micros = p50Micros;
+            this.p95Micros = p95Micros;
+            this.p99Micros = p99Micros;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSumMicros() {
+            return sumMicros;
+        }
+
+        public long getMaxMicros() {
+            return maxMicros;
+        }
+
+        public long getP50Micros() {
+            return p50Micros;
+        }
+
+        public long getP95Micros() {
+            return p95Micros;
+        }
+
+        public long getP99Micros() {
+            return p99Micros;
+        }
+    }
+}
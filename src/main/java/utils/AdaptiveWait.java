@@ -0,0 +1,75 @@
+package utils;
+
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import java.time.Duration;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * WebDriverWait whose timeout and polling interval come from {@link WaitPolicy} on every {@link #until}, and
+ * which reports back how long the wait took. Waits are keyed by {@code label}, or by the page action they run
+ * in plus the condition's description when no label is given, so that different waits of one action are learned
+ * apart ("WomenProductsPage.sortByPrice.wait.element_to_be_clickable_By.cssSelector_.sort-by_select").
+ * Lambdas have no stable description and share "{@code <action>.wait.lambda}"; give lambda waits a label.
+ */
+public class AdaptiveWait extends WebDriverWait {
+
+    private static final Duration DEFAULT_POLLING = Duration.ofMillis(100);
+    private static final int MAX_DESCRIPTION = 120;
+    private static final Pattern KEY_UNSAFE = Pattern.compile("[\\s:=#!]+");
+
+    private final String label;
+    private final Duration defaultTimeout;
+    private final Duration defaultPolling;
+
+    public AdaptiveWait(WebDriver driver, String label, Duration defaultTimeout) {
+        this(driver, label, defaultTimeout, DEFAULT_POLLING);
+    }
+
+    public AdaptiveWait(WebDriver driver, String label, Duration defaultTimeout, Duration defaultPolling) {
+        super(driver, defaultTimeout, defaultPolling);
+        this.label = label;
+        this.defaultTimeout = defaultTimeout;
+        this.defaultPolling = defaultPolling;
+    }
+
+    @Override
+    public <V> V until(Function<? super WebDriver, V> isTrue) {
+        String key = key(isTrue);
+        WaitPolicy policy = WaitPolicy.getInstance();
+        WaitPolicy.Timing timing = policy.timingFor(key, defaultTimeout, defaultPolling);
+        withTimeout(timing.getTimeout());
+        pollingEvery(timing.getPolling());
+
+        long start = System.nanoTime();
+        try {
+            V value = super.until(isTrue);
+            policy.recordSuccess(key, (System.nanoTime() - start) / 1_000_000);
+            return value;
+        } catch (TimeoutException e) {
+            policy.recordTimeout(key);
+            throw e;
+        }
+    }
+
+    private String key(Function<?, ?> condition) {
+        if (label != null) {
+            return label;
+        }
+        String action = ActionMetrics.currentAction();
+        return (action == null ? "unscoped" : action) + ".wait." + describe(condition);
+    }
+
+    /** A short description usable in a properties key, stable across runs */
+    private static String describe(Function<?, ?> condition) {
+        String text = condition.toString();
+        if (text.contains("$$Lambda")) {
+            return "lambda";
+        }
+        text = KEY_UNSAFE.matcher(text).replaceAll("_");
+        return text.length() > MAX_DESCRIPTION ? text.substring(0, MAX_DESCRIPTION) : text;
+    }
+}
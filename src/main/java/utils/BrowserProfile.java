@@ -0,0 +1,73 @@
+package utils;
+
+import org.openqa.selenium.PageLoadStrategy;
+
+import java.util.Arrays;
+
+/**
+ * Named browser configurations, selected with {@code -Dbrowser.profile=<name>}.
+ */
+public enum BrowserProfile {
+
+    /** Headed Chrome, maximized, full rendering - the settings the suite was written against */
+    DEFAULT(false, PageLoadStrategy.NORMAL, false, false, false),
+
+    /** Headless with no GPU and a small fixed window, still renders images and fonts */
+    HEADLESS(true, PageLoadStrategy.NORMAL, false, true, false),
+
+    /** Headless, eager page loads, images and web fonts blocked - the quickest option for CI */
+    FAST(true, PageLoadStrategy.EAGER, true, true, false),
+
+    /**
+     * Headed and maximized with DevTools open, no third-party traffic filtered and a verbose chromedriver log
+     * in the artifacts directory, for watching or stepping through a test
+     */
+    DEBUG(false, PageLoadStrategy.NORMAL, false, false, true);
+
+    private final boolean headless;
+    private final PageLoadStrategy pageLoadStrategy;
+    private final boolean blockImagesAndFonts;
+    private final boolean fixedWindowSize;
+    private final boolean debugging;
+
+    BrowserProfile(boolean headless, PageLoadStrategy pageLoadStrategy, boolean blockImagesAndFonts,
+                   boolean fixedWindowSize, boolean debugging) {
+        this.headless = headless;
+        this.pageLoadStrategy = pageLoadStrategy;
+        this.blockImagesAndFonts = blockImagesAndFonts;
+        this.fixedWindowSize = fixedWindowSize;
+        this.debugging = debugging;
+    }
+
+    public boolean isHeadless() {
+        return headless;
+    }
+
+    public PageLoadStrategy getPageLoadStrategy() {
+        return pageLoadStrategy;
+    }
+
+    public boolean blocksImagesAndFonts() {
+        return blockImagesAndFonts;
+    }
+
+    public boolean hasFixedWindowSize() {
+        return fixedWindowSize;
+    }
+
+    /** Opens DevTools, logs every chromedriver command and leaves the page's network traffic unfiltered */
+    public boolean isDebugging() {
+        return debugging;
+    }
+
+    /** Profile selected for this run */
+    public static BrowserProfile current() {
+        String name = Config.browserProfile();
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown browser.profile '" + name + "'. Expected one of: "
+                    + Arrays.toString(values()).toLowerCase());
+        }
+    }
+}
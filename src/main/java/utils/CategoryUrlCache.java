@@ -0,0 +1,102 @@
+package utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+
+/**
+ * Category page URLs found in the storefront menu, kept on disk between runs so that direct navigation
+ * does not have to look at the menu again. Paths are stored relative to the site root, which keeps them
+ * valid for the live site and the local stand-in alike. Shard JVMs share the file, so every change is merged
+ * into it under a lock.
+ */
+public final class CategoryUrlCache {
+
+    private static final String CACHE_FILE = "category-urls.properties";
+
+    private static final CategoryUrlCache INSTANCE = new CategoryUrlCache();
+
+    private final Properties paths = new Properties();
+
+    private CategoryUrlCache() {
+        Path file = cacheFile();
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                paths.load(in);
+            } catch (IOException e) {
+                Log.warn("Ignoring unreadable category URL cache " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    public static CategoryUrlCache getInstance() {
+        return INSTANCE;
+    }
+
+    /** Path of the category relative to the site root, or null if it has not been discovered yet */
+    public String lookup(String category) {
+        return paths.getProperty(category);
+    }
+
+    /** Remembers a category link; absolute URLs outside the current site are ignored */
+    public synchronized void remember(String category, String url) {
+        String path = toSitePath(url);
+        if (path != null && !path.equals(paths.getProperty(category))) {
+            paths.setProperty(category, path);
+            save(category, path);
+        }
+    }
+
+    /** Drops a path that no longer leads to the category */
+    public synchronized void forget(String category) {
+        if (paths.remove(category) != null) {
+            save(category, null);
+        }
+    }
+
+    private static String toSitePath(String url) {
+        String base = SiteUrls.baseUrl();
+        if (url == null || !url.startsWith(base)) {
+            return null;
+        }
+        return url.substring(base.length());
+    }
+
+    /** Writes one category's path into the file, or removes it for a null path, keeping what other JVMs wrote */
+    private void save(String category, String path) {
+        Path file = cacheFile();
+        try {
+            Files.createDirectories(file.getParent());
+            try (FileChannel lockChannel = FileChannel.open(file.resolveSibling(CACHE_FILE + ".lock"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                // Held until the channel is closed
+                lockChannel.lock();
+                Properties current = new Properties();
+                if (Files.exists(file)) {
+                    try (InputStream in = Files.newInputStream(file)) {
+                        current.load(in);
+                    }
+                }
+                if (path == null) {
+                    current.remove(category);
+                } else {
+                    current.setProperty(category, path);
+                }
+                try (OutputStream out = Files.newOutputStream(file)) {
+                    current.store(out, "Category page paths discovered from the storefront menu");
+                }
+            }
+        } catch (IOException e) {
+            Log.warn("Could not write category URL cache " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static Path cacheFile() {
+        return Config.cacheDir().resolve(CACHE_FILE);
+    }
+}
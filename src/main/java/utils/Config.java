@@ -0,0 +1,220 @@
+package utils;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Central access to the system properties that tune a test run */
+public final class Config {
+
+    private Config() {
+    }
+
+    /** TestNG parallel mode: none, tests, methods or classes */
+    public static String parallelMode() {
+        return System.getProperty("suite.parallel", "none").trim().toLowerCase();
+    }
+
+    public static boolean isParallel() {
+        return !"none".equals(parallelMode()) && !"false".equals(parallelMode());
+    }
+
+    /** Worker threads used when running in parallel, defaults to one per core */
+    public static int threadCount() {
+        return Integer.getInteger("suite.threads", Runtime.getRuntime().availableProcessors());
+    }
+
+    /** Warm browser sessions to keep, defaults to one per worker thread */
+    public static int driverPoolSize() {
+        return Integer.getInteger("driver.pool.size", isParallel() ? threadCount() : 1);
+    }
+
+    /** Name of the {@link BrowserProfile} to launch */
+    public static String browserProfile() {
+        return System.getProperty("browser.profile", "default");
+    }
+
+    /** Window size used by profiles with a fixed window, as {@code width,height} */
+    public static String windowSize() {
+        return System.getProperty("browser.window.size", "1366,768");
+    }
+
+    /** Directory for state kept between runs (driver binary, learned locators, ...) */
+    public static Path cacheDir() {
+        return Paths.get(System.getProperty("cache.dir", ".cache"));
+    }
+
+    /** Never contact the network to resolve the chromedriver binary */
+    public static boolean isDriverOffline() {
+        return Boolean.getBoolean("driver.offline");
+    }
+
+    /** How long a resolved chromedriver is trusted before WebDriverManager is asked again */
+    public static Duration driverCacheTtl() {
+        return Duration.ofHours(Long.getLong("driver.cache.ttl.hours", 24));
+    }
+
+    /** How long the DOM must stay unchanged before a page counts as settled */
+    public static long domQuietMillis() {
+        return Long.getLong("wait.dom.quiet.ms", 200);
+    }
+
+    /** Short wait used to re-check a locator remembered by {@link LocatorCache} before the full fallback list */
+    public static Duration locatorProbeTimeout() {
+        return Duration.ofMillis(Long.getLong("locator.probe.ms", 2000));
+    }
+
+    /** Where the storefront comes from: live, replay (recorded fixtures, no network) or record */
+    public static String siteMode() {
+        return System.getProperty("site.mode", "live").trim().toLowerCase();
+    }
+
+    /** The public storefront, used in live mode and as the upstream when recording */
+    public static String liveSiteUrl() {
+        return System.getProperty("site.url", "https://ecommerce.tealiumdemo.com/");
+    }
+
+    /** Directory with recorded storefront responses */
+    public static Path siteFixturesDir() {
+        return Paths.get(System.getProperty("site.fixtures", "fixtures/site"));
+    }
+
+    /** Port of the embedded local site; 0 picks a free port */
+    public static int localSitePort() {
+        return Integer.getInteger("site.port", 0);
+    }
+
+    /** What the network filter does with matching third-party requests: block, observe (count and size only) or off */
+    public static String networkFilterMode() {
+        return System.getProperty("network.filter", "block").trim().toLowerCase();
+    }
+
+    /** Extra URL patterns to block, comma-separated, on top of {@link NetworkFilter}'s defaults */
+    public static List<String> networkDenyPatterns() {
+        return splitList(System.getProperty("network.filter.deny", ""));
+    }
+
+    /** URL patterns that are never blocked, comma-separated; they win over deny patterns */
+    public static List<String> networkAllowPatterns() {
+        return splitList(System.getProperty("network.filter.allow", ""));
+    }
+
+    /** Where {@link MetricsExporter} writes the action latency reports */
+    public static Path metricsDir() {
+        return Paths.get(System.getProperty("metrics.dir", "target/metrics"));
+    }
+
+    /** Whether page navigations record {@link NavigationTiming}s for the running test */
+    public static boolean isNavigationTimingEnabled() {
+        return Boolean.parseBoolean(System.getProperty("perf.timings", "true"));
+    }
+
+    /**
+     * What happens when a {@link PerformanceBudget} is exceeded: enforce (fail the test), warn or off. Only
+     * replayed fixtures load predictably enough to enforce by default; against the live site budgets just warn.
+     */
+    public static String performanceBudgetMode() {
+        String defaultMode = "replay".equals(siteMode()) ? "enforce" : "warn";
+        return System.getProperty("perf.budgets", defaultMode).trim().toLowerCase();
+    }
+
+    /** How page objects reach category pages: direct (URL jump, default) or menu (hover and click) */
+    public static String navigationStrategy() {
+        return System.getProperty("nav.strategy", "direct");
+    }
+
+    /** Lowest {@link Log} level that is written: debug, info (default), warn, error or off */
+    public static Log.Level logLevel() {
+        String name = System.getProperty("log.level", "info");
+        try {
+            return Log.Level.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown log.level '" + name + "'. Expected debug, info, warn, error or off");
+        }
+    }
+
+    /** Log lines that may wait for the background writer before callers block */
+    public static int logQueueSize() {
+        return Integer.getInteger("log.queue.size", 8192);
+    }
+
+    /** Where {@link FailureArtifactListener} stores screenshots, page sources and logs of failed tests */
+    public static Path artifactsDir() {
+        return Paths.get(System.getProperty("artifacts.dir", "screenshots"));
+    }
+
+    /** Disk space the failure artifacts may use before the oldest are deleted */
+    public static long artifactsMaxBytes() {
+        return Long.getLong("artifacts.max.mb", 200) * 1024 * 1024;
+    }
+
+    /** Which shard of the suite this JVM runs, from 0 to {@link #shardCount()} - 1 */
+    public static int shardIndex() {
+        return Integer.getInteger("shard.index", 0);
+    }
+
+    /** Number of shards the suite is split into; 1 runs everything */
+    public static int shardCount() {
+        return Integer.getInteger("shard.count", 1);
+    }
+
+    /** Selenium Grid to create sessions on, e.g. http://localhost:4444; empty starts a local chromedriver */
+    public static String gridUrl() {
+        return System.getProperty("grid.url", "").trim();
+    }
+
+    /** Whether {@link ShardRunner} starts a standalone Grid on this machine for its shards */
+    public static boolean isLocalGrid() {
+        return Boolean.getBoolean("shard.grid");
+    }
+
+    /** Run the longest tests first (suite.order=longest, the default) or keep testng.xml order (declared) */
+    public static boolean isLongestFirst() {
+        String order = System.getProperty("suite.order", "longest").trim().toLowerCase();
+        if (!"longest".equals(order) && !"declared".equals(order)) {
+            throw new IllegalArgumentException("Unknown suite.order '" + order + "'. Expected longest or declared");
+        }
+        return "longest".equals(order);
+    }
+
+    /** Consecutive outage-like test failures that open the storefront circuit breaker; 0 disables it */
+    public static int siteBreakerFailures() {
+        return Integer.getInteger("site.breaker.failures", 2);
+    }
+
+    public static boolean isSiteBreakerEnabled() {
+        return siteBreakerFailures() > 0;
+    }
+
+    /** How long an open circuit waits before the storefront is probed again */
+    public static Duration siteBreakerRetry() {
+        return Duration.ofSeconds(Long.getLong("site.breaker.retry.seconds", 30));
+    }
+
+    /** Connect and read timeout of the storefront health probe */
+    public static Duration siteProbeTimeout() {
+        return Duration.ofMillis(Long.getLong("site.probe.timeout.ms", 3000));
+    }
+
+    /** Environment whose learned wait latencies and policy overrides {@link WaitPolicy} uses; the site mode by default */
+    public static String waitEnvironment() {
+        return System.getProperty("wait.env", siteMode()).trim().toLowerCase();
+    }
+
+    /** Per-environment wait bounds and fixed timeouts read by {@link WaitPolicy} */
+    public static Path waitPolicyFile() {
+        return Paths.get(System.getProperty("wait.policy.file", "wait-policy.properties"));
+    }
+
+    private static List<String> splitList(String value) {
+        List<String> items = new ArrayList<>();
+        for (String item : value.split(",")) {
+            if (!item.trim().isEmpty()) {
+                items.add(item.trim());
+            }
+        }
+        return items;
+    }
+}
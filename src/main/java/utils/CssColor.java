@@ -0,0 +1,443 @@
+package utils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Immutable sRGB colour parsed from a CSS value: {@code rgb()/rgba()} (comma or space syntax, numbers or
+ * percentages), {@code #rgb/#rgba/#rrggbb/#rrggbbaa}, {@code hsl()/hsla()} and the CSS named colours.
+ * Computed styles repeat the same few strings across a whole product grid, so {@link #cached(String)} keeps
+ * parsed values and a repeated lookup costs one hash-map read. The CIE Lab coordinates are computed once per
+ * colour for {@link #deltaE(CssColor)}.
+ *
+ * <p>Predicates for colour classes are built with {@link #grey(int, int, int)}, {@link #blueDominant()},
+ * {@link #near(CssColor, int)} and {@link #perceptuallyNear(CssColor, double)}.
+ */
+public final class CssColor {
+
+    private static final int CACHE_LIMIT = 4096;
+    private static final Map<String, CssColor> CACHE = new ConcurrentHashMap<>();
+    /** Cached marker for values that are not colours */
+    private static final CssColor INVALID = new CssColor(0, 0, 0, 0);
+
+    private static final Map<String, CssColor> NAMED = new HashMap<>();
+
+    static {
+        String[] named = ("aliceblue f0f8ff antiquewhite faebd7 aqua 00ffff aquamarine 7fffd4 azure f0ffff beige f5f5dc "
+                + "bisque ffe4c4 black 000000 blanchedalmond ffebcd blue 0000ff blueviolet 8a2be2 brown a52a2a "
+                + "burlywood deb887 cadetblue 5f9ea0 chartreuse 7fff00 chocolate d2691e coral ff7f50 "
+                + "cornflowerblue 6495ed cornsilk fff8dc crimson dc143c cyan 00ffff darkblue 00008b darkcyan 008b8b "
+                + "darkgoldenrod b8860b darkgray a9a9a9 darkgreen 006400 darkgrey a9a9a9 darkkhaki bdb76b "
+                + "darkmagenta 8b008b darkolivegreen 556b2f darkorange ff8c00 darkorchid 9932cc darkred 8b0000 "
+                + "darksalmon e9967a darkseagreen 8fbc8f darkslateblue 483d8b darkslategray 2f4f4f "
+                + "darkslategrey 2f4f4f darkturquoise 00ced1 darkviolet 9400d3 deeppink ff1493 deepskyblue 00bfff "
+                + "dimgray 696969 dimgrey 696969 dodgerblue 1e90ff firebrick b22222 floralwhite fffaf0 "
+                + "forestgreen 228b22 fuchsia ff00ff gainsboro dcdcdc ghostwhite f8f8ff gold ffd700 "
+                + "goldenrod daa520 gray 808080 green 008000 greenyellow adff2f grey 808080 honeydew f0fff0 "
+                + "hotpink ff69b4 indianred cd5c5c indigo 4b0082 ivory fffff0 khaki f0e68c lavender e6e6fa "
+                + "lavenderblush fff0f5 lawngreen 7cfc00 lemonchiffon fffacd lightblue add8e6 lightcoral f08080 "
+                + "lightcyan e0ffff lightgoldenrodyellow fafad2 lightgray d3d3d3 lightgreen 90ee90 "
+                + "lightgrey d3d3d3 lightpink ffb6c1 lightsalmon ffa07a lightseagreen 20b2aa lightskyblue 87cefa "
+                + "lightslategray 778899 lightslategrey 778899 lightsteelblue b0c4de lightyellow ffffe0 "
+                + "lime 00ff00 limegreen 32cd32 linen faf0e6 magenta ff00ff maroon 800000 "
+                + "mediumaquamarine 66cdaa mediumblue 0000cd mediumorchid ba55d3 mediumpurple 9370db "
+                + "mediumseagreen 3cb371 mediumslateblue 7b68ee mediumspringgreen 00fa9a mediumturquoise 48d1cc "
+                + "mediumvioletred c71585 midnightblue 191970 mintcream f5fffa mistyrose ffe4e1 moccasin ffe4b5 "
+                + "navajowhite ffdead navy 000080 oldlace fdf5e6 olive 808000 olivedrab 6b8e23 orange ffa500 "
+                + "orangered ff4500 orchid da70d6 palegoldenrod eee8aa palegreen 98fb98 paleturquoise afeeee "
+                + "palevioletred db7093 papayawhip ffefd5 peachpuff ffdab9 peru cd853f pink ffc0cb plum dda0dd "
+                + "powderblue b0e0e6 purple 800080 rebeccapurple 663399 red ff0000 rosybrown bc8f8f "
+                + "royalblue 4169e1 saddlebrown 8b4513 salmon fa8072 sandybrown f4a460 seagreen 2e8b57 "
+                + "seashell fff5ee sienna a0522d silver c0c0c0 skyblue 87ceeb slateblue 6a5acd slategray 708090 "
+                + "slategrey 708090 snow fffafa springgreen 00ff7f steelblue 4682b4 tan d2b48c teal 008080 "
+                + "thistle d8bfd8 tomato ff6347 turquoise 40e0d0 violet ee82ee wheat f5deb3 white ffffff "
+                + "whitesmoke f5f5f5 yellow ffff00 yellowgreen 9acd32").split(" ");
+        for (int i = 0; i < named.length; i += 2) {
+            int rgb = Integer.parseInt(named[i + 1], 16);
+            NAMED.put(named[i], new CssColor(rgb >> 16, (rgb >> 8) & 0xff, rgb & 0xff, 1.0));
+        }
+        NAMED.put("transparent", new CssColor(0, 0, 0, 0.0));
+    }
+
+    private final int red;
+    private final int green;
+    private final int blue;
+    private final double alpha;
+    private final double labL;
+    private final double labA;
+    private final double labB;
+
+    private CssColor(int red, int green, int blue, double alpha) {
+        this.red = red;
+        this.green = green;
+        this.blue = blue;
+        this.alpha = alpha;
+
+        double r = linear(red);
+        double g = linear(green);
+        double b = linear(blue);
+        // sRGB (D65) to XYZ, normalised by the D65 white point
+        double x = labF((0.4124 * r + 0.3576 * g + 0.1805 * b) / 0.95047);
+        double y = labF(0.2126 * r + 0.7152 * g + 0.0722 * b);
+        double z = labF((0.0193 * r + 0.1192 * g + 0.9505 * b) / 1.08883);
+        this.labL = 116 * y - 16;
+        this.labA = 500 * (x - y);
+        this.labB = 200 * (y - z);
+    }
+
+    public static CssColor rgb(int red, int green, int blue) {
+        return rgba(red, green, blue, 1.0);
+    }
+
+    public static CssColor rgba(int red, int green, int blue, double alpha) {
+        return new CssColor(clamp(red, 255), clamp(green, 255), clamp(blue, 255), Math.max(0, Math.min(1, alpha)));
+    }
+
+    /**
+     * Parsed colour for a computed-style value, or null if it is not a colour. Results, including failures,
+     * are kept for the first {@value #CACHE_LIMIT} distinct strings; nothing is evicted, later strings are
+     * parsed on every call. A page's computed styles use far fewer distinct values than that.
+     */
+    public static CssColor cached(String value) {
+        if (value == null) {
+            return null;
+        }
+        CssColor color = CACHE.get(value);
+        if (color == null) {
+            try {
+                color = parse(value);
+            } catch (IllegalArgumentException e) {
+                color = INVALID;
+            }
+            if (CACHE.size() < CACHE_LIMIT) {
+                CACHE.put(value, color);
+            }
+        }
+        return color == INVALID ? null : color;
+    }
+
+    /**
+     * Parses a CSS colour value.
+     *
+     * @throws IllegalArgumentException if the value is not a supported colour
+     */
+    public static CssColor parse(String value) {
+        int start = 0;
+        int end = value.length();
+        while (start < end && Character.isWhitespace(value.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(value.charAt(end - 1))) {
+            end--;
+        }
+        if (start == end) {
+            throw new IllegalArgumentException("Empty colour value");
+        }
+
+        if (value.charAt(start) == '#') {
+            return parseHex(value, start + 1, end);
+        }
+        if (value.regionMatches(true, start, "rgb", 0, 3)) {
+            return parseFunction(value, start + 3, end, false);
+        }
+        if (value.regionMatches(true, start, "hsl", 0, 3)) {
+            return parseFunction(value, start + 3, end, true);
+        }
+        CssColor named = NAMED.get(value.substring(start, end).toLowerCase());
+        if (named == null) {
+            throw new IllegalArgumentException("Not a colour: '" + value + "'");
+        }
+        return named;
+    }
+
+    public int getRed() {
+        return red;
+    }
+
+    public int getGreen() {
+        return green;
+    }
+
+    public int getBlue() {
+        return blue;
+    }
+
+    /** Opacity from 0 (transparent) to 1 */
+    public double getAlpha() {
+        return alpha;
+    }
+
+    /** Largest difference between two of the three channels; 0 for a perfectly neutral grey */
+    public int channelSpread() {
+        return Math.max(red, Math.max(green, blue)) - Math.min(red, Math.min(green, blue));
+    }
+
+    /** CIE76 colour difference; about 2.3 is the smallest difference most people notice */
+    public double deltaE(CssColor other) {
+        double dl = labL - other.labL;
+        double da = labA - other.labA;
+        double db = labB - other.labB;
+        return Math.sqrt(dl * dl + da * da + db * db);
+    }
+
+    /**
+     * Near-neutral colours: channels at most {@code tolerance} apart, at least one channel above
+     * {@code darkest} (not black) and at least one below {@code lightest} (not white).
+     */
+    public static Predicate<CssColor> grey(int tolerance, int darkest, int lightest) {
+        return c -> c.channelSpread() <= tolerance
+                && (c.red > darkest || c.green > darkest || c.blue > darkest)
+                && (c.red < lightest || c.green < lightest || c.blue < lightest);
+    }
+
+    /** Blue channel strictly above both red and green */
+    public static Predicate<CssColor> blueDominant() {
+        return c -> c.blue > c.red && c.blue > c.green;
+    }
+
+    /** Every channel within {@code tolerance} of the target's; alpha is ignored */
+    public static Predicate<CssColor> near(CssColor target, int tolerance) {
+        return c -> Math.abs(c.red - target.red) <= tolerance
+                && Math.abs(c.green - target.green) <= tolerance
+                && Math.abs(c.blue - target.blue) <= tolerance;
+    }
+
+    /** Within {@code maxDeltaE} of the target in CIE Lab space; alpha is ignored */
+    public static Predicate<CssColor> perceptuallyNear(CssColor target, double maxDeltaE) {
+        return c -> c.deltaE(target) <= maxDeltaE;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof CssColor)) {
+            return false;
+        }
+        CssColor other = (CssColor) o;
+        return red == other.red && green == other.green && blue == other.blue
+                && Double.compare(alpha, other.alpha) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return ((red * 31 + green) * 31 + blue) * 31 + Double.hashCode(alpha);
+    }
+
+    /** In the format Chrome uses for computed styles, e.g. "rgba(51, 153, 204, 1)" */
+    @Override
+    public String toString() {
+        return "rgba(" + red + ", " + green + ", " + blue + ", " + (alpha == (int) alpha ? String.valueOf((int) alpha) : String.valueOf(alpha)) + ")";
+    }
+
+    private static CssColor parseHex(String value, int start, int end) {
+        int digits = end - start;
+        if (digits != 3 && digits != 4 && digits != 6 && digits != 8) {
+            throw new IllegalArgumentException("Bad hex colour: '" + value + "'");
+        }
+        int[] channels = new int[4];
+        channels[3] = 255;
+        boolean shortForm = digits <= 4;
+        for (int i = 0; i < (shortForm ? digits : digits / 2); i++) {
+            if (shortForm) {
+                int d = hexDigit(value, start + i);
+                channels[i] = d * 17;
+            } else {
+                channels[i] = hexDigit(value, start + 2 * i) * 16 + hexDigit(value, start + 2 * i + 1);
+            }
+        }
+        return new CssColor(channels[0], channels[1], channels[2], channels[3] / 255.0);
+    }
+
+    private static int hexDigit(String value, int index) {
+        int digit = Character.digit(value.charAt(index), 16);
+        if (digit < 0) {
+            throw new IllegalArgumentException("Bad hex colour: '" + value + "'");
+        }
+        return digit;
+    }
+
+    /**
+     * {@code rgb(...)/rgba(...)/hsl(...)/hsla(...)}, starting after the three-letter name. Components are
+     * either all separated by single commas, or by whitespace with a '/' before the alpha value.
+     */
+    private static CssColor parseFunction(String value, int pos, int end, boolean hsl) {
+        if (pos < end && (value.charAt(pos) == 'a' || value.charAt(pos) == 'A')) {
+            pos++;
+        }
+        if (pos >= end || value.charAt(pos) != '(' || value.charAt(end - 1) != ')') {
+            throw new IllegalArgumentException("Bad colour function: '" + value + "'");
+        }
+        pos++;
+        end--;
+
+        double[] numbers = new double[4];
+        boolean[] percent = new boolean[4];
+        int count = 0;
+        boolean commas = false;
+        while (true) {
+            char separator = 0;
+            while (pos < end && isSeparator(value.charAt(pos))) {
+                char c = value.charAt(pos++);
+                if (c == ',' || c == '/') {
+                    if (separator != 0) {
+                        throw new IllegalArgumentException("Bad colour separator: '" + value + "'");
+                    }
+                    separator = c;
+                }
+            }
+            if (pos >= end) {
+                if (separator != 0) {
+                    throw new IllegalArgumentException("Bad colour separator: '" + value + "'");
+                }
+                break;
+            }
+            if (count == 1) {
+                commas = separator == ',';
+            }
+            // Nothing before the first component; between the others whitespace alone only in the space syntax
+            char expected = count == 0 ? 0 : commas ? ',' : count == 3 ? '/' : 0;
+            if (separator != expected) {
+                throw new IllegalArgumentException("Bad colour separator: '" + value + "'");
+            }
+            if (count == 4) {
+                throw new IllegalArgumentException("Too many colour components: '" + value + "'");
+            }
+
+            int numberStart = pos;
+            if (value.charAt(pos) == '-' || value.charAt(pos) == '+') {
+                pos++;
+            }
+            int digitsStart = pos;
+            while (pos < end && (Character.isDigit(value.charAt(pos)) || value.charAt(pos) == '.')) {
+                pos++;
+            }
+            if (pos == digitsStart || (pos == digitsStart + 1 && value.charAt(digitsStart) == '.')) {
+                throw new IllegalArgumentException("Bad colour component: '" + value + "'");
+            }
+            double number = parseDecimal(value, numberStart, pos);
+
+            int unitStart = pos;
+            while (pos < end && !isSeparator(value.charAt(pos))) {
+                pos++;
+            }
+            if (pos > unitStart) {
+                if (value.charAt(unitStart) == '%' && pos == unitStart + 1) {
+                    percent[count] = true;
+                } else if (hsl && count == 0) {
+                    number = hueInDegrees(value, number, unitStart, pos);
+                } else {
+                    throw new IllegalArgumentException("Bad colour unit: '" + value + "'");
+                }
+            }
+            numbers[count++] = number;
+        }
+        if (count < 3) {
+            throw new IllegalArgumentException("Too few colour components: '" + value + "'");
+        }
+
+        double alpha = count == 4 ? (percent[3] ? numbers[3] / 100 : numbers[3]) : 1.0;
+        alpha = Math.max(0, Math.min(1, alpha));
+        if (hsl) {
+            return fromHsl(numbers[0], numbers[1] / 100, numbers[2] / 100, alpha);
+        }
+        return new CssColor(channel(numbers[0], percent[0]), channel(numbers[1], percent[1]),
+                channel(numbers[2], percent[2]), alpha);
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == ',' || c == '/' || Character.isWhitespace(c);
+    }
+
+    /** Digits with an optional sign and fraction, without creating a substring */
+    private static double parseDecimal(String value, int start, int end) {
+        boolean negative = value.charAt(start) == '-';
+        if (negative || value.charAt(start) == '+') {
+            start++;
+        }
+        double whole = 0;
+        double scale = 0;
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c == '.') {
+                if (scale != 0) {
+                    throw new IllegalArgumentException("Bad number in '" + value + "'");
+                }
+                scale = 1;
+            } else {
+                whole = whole * 10 + (c - '0');
+                if (scale != 0) {
+                    scale *= 10;
+                }
+            }
+        }
+        double number = scale == 0 ? whole : whole / scale;
+        return negative ? -number : number;
+    }
+
+    private static double hueInDegrees(String value, double number, int unitStart, int unitEnd) {
+        int length = unitEnd - unitStart;
+        if (length == 3 && value.regionMatches(true, unitStart, "deg", 0, 3)) {
+            return number;
+        }
+        if (length == 4 && value.regionMatches(true, unitStart, "turn", 0, 4)) {
+            return number * 360;
+        }
+        if (length == 3 && value.regionMatches(true, unitStart, "rad", 0, 3)) {
+            return Math.toDegrees(number);
+        }
+        if (length == 4 && value.regionMatches(true, unitStart, "grad", 0, 4)) {
+            return number * 0.9;
+        }
+        throw new IllegalArgumentException("Bad hue unit: '" + value + "'");
+    }
+
+    private static int channel(double number, boolean percent) {
+        return clamp((int) Math.round(percent ? number * 255 / 100 : number), 255);
+    }
+
+    private static CssColor fromHsl(double hue, double saturation, double lightness, double alpha) {
+        double s = Math.max(0, Math.min(1, saturation));
+        double l = Math.max(0, Math.min(1, lightness));
+        double h = ((hue % 360) + 360) % 360 / 360;
+        double q = l < 0.5 ? l * (1 + s) : l + s - l * s;
+        double p = 2 * l - q;
+        return new CssColor(
+                (int) Math.round(hueToChannel(p, q, h + 1.0 / 3) * 255),
+                (int) Math.round(hueToChannel(p, q, h) * 255),
+                (int) Math.round(hueToChannel(p, q, h - 1.0 / 3) * 255),
+                alpha);
+    }
+
+    private static double hueToChannel(double p, double q, double t) {
+        if (t < 0) {
+            t += 1;
+        }
+        if (t > 1) {
+            t -= 1;
+        }
+        if (t < 1.0 / 6) {
+            return p + (q - p) * 6 * t;
+        }
+        if (t < 1.0 / 2) {
+            return q;
+        }
+        if (t < 2.0 / 3) {
+            return p + (q - p) * (2.0 / 3 - t) * 6;
+        }
+        return p;
+    }
+
+    private static int clamp(int value, int max) {
+        return Math.max(0, Math.min(max, value));
+    }
+
+    private static double linear(int channel) {
+        double c = channel / 255.0;
+        return c <= 0.04045 ? c / 12.92 : Math.pow((c + 0.055) / 1.055, 2.4);
+    }
+
+    private static double labF(double t) {
+        return t > 216.0 / 24389 ? Math.cbrt(t) : (24389.0 / 27 * t + 16) / 116;
+    }
+}
@@ -0,0 +1,174 @@
+package utils;
+
+import io.github.bonigarcia.wdm.WebDriverManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Properties;
+
+/**
+ * Resolves the chromedriver binary once per JVM and remembers the result on disk, so later runs
+ * skip version discovery entirely. With {@code -Ddriver.offline=true} the network is never contacted:
+ * the driver comes from {@code webdriver.chrome.driver}, the on-disk cache or the PATH.
+ */
+public final class DriverBinaryResolver {
+
+    private static final String CACHE_FILE = "driver-binary.properties";
+    private static final String KEY_DRIVER_PATH = "chromedriver.path";
+    private static final String KEY_DRIVER_VERSION = "chromedriver.version";
+    private static final String KEY_BROWSER_VERSION = "browser.version";
+    private static final String KEY_RESOLVED_AT = "resolved.at";
+
+    private static String resolvedPath;
+
+    private DriverBinaryResolver() {
+    }
+
+    /** Path to a usable chromedriver executable, resolved at most once per JVM */
+    public static synchronized String resolve() {
+        if (resolvedPath != null) {
+            return resolvedPath;
+        }
+
+        String explicit = System.getProperty("webdriver.chrome.driver");
+        if (isExecutable(explicit)) {
+            resolvedPath = explicit;
+            return resolvedPath;
+        }
+
+        Properties cache = readCache();
+        String cachedPath = cache.getProperty(KEY_DRIVER_PATH);
+        if (isExecutable(cachedPath) && (Config.isDriverOffline() || !isExpired(cache))) {
+            Log.info("Using cached chromedriver " + cache.getProperty(KEY_DRIVER_VERSION, "")
+                    + " at " + cachedPath);
+            resolvedPath = cachedPath;
+            return resolvedPath;
+        }
+
+        if (Config.isDriverOffline()) {
+            String fromPath = findOnPath();
+            if (fromPath == null) {
+                throw new IllegalStateException("driver.offline is set but no chromedriver was found. Set "
+                        + "-Dwebdriver.chrome.driver, put chromedriver on the PATH, or run once online to fill "
+                        + cacheFile());
+            }
+            resolvedPath = fromPath;
+            return resolvedPath;
+        }
+
+        resolvedPath = resolveOnline(cache);
+        return resolvedPath;
+    }
+
+    /** Remembers the browser version reported by a live session next to the cached driver */
+    public static synchronized void recordBrowserVersion(String browserVersion) {
+        Properties cache = readCache();
+        if (browserVersion == null || browserVersion.equals(cache.getProperty(KEY_BROWSER_VERSION))) {
+            return;
+        }
+        cache.setProperty(KEY_BROWSER_VERSION, browserVersion);
+        writeCache(cache);
+    }
+
+    /** Drops the cached binary, e.g. after Chrome was upgraded and the session no longer starts */
+    public static synchronized void invalidate() {
+        resolvedPath = null;
+        try {
+            Files.deleteIfExists(cacheFile());
+        } catch (IOException e) {
+            Log.warn("Could not delete " + cacheFile() + ": " + e.getMessage());
+        }
+    }
+
+    private static String resolveOnline(Properties cache) {
+        long start = System.nanoTime();
+        WebDriverManager manager = WebDriverManager.chromedriver();
+        manager.setup();
+
+        String path = manager.getDownloadedDriverPath();
+        cache.setProperty(KEY_DRIVER_PATH, path);
+        cache.setProperty(KEY_DRIVER_VERSION, String.valueOf(manager.getDownloadedDriverVersion()));
+        cache.setProperty(KEY_RESOLVED_AT, Instant.now().toString());
+        writeCache(cache);
+
+        Log.info("Resolved chromedriver " + manager.getDownloadedDriverVersion() + " in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return path;
+    }
+
+    private static boolean isExpired(Properties cache) {
+        String resolvedAt = cache.getProperty(KEY_RESOLVED_AT);
+        if (resolvedAt == null) {
+            return true;
+        }
+        try {
+            return Instant.parse(resolvedAt).plus(Config.driverCacheTtl()).isBefore(Instant.now());
+        } catch (Exception e) {
+            return true;
+        }
+    }
+
+    private static String findOnPath() {
+        String pathEnv = System.getenv("PATH");
+        if (pathEnv == null) {
+            return null;
+        }
+        String binary = System.getProperty("os.name", "").toLowerCase().contains("win") ? "chromedriver.exe" : "chromedriver";
+        for (String dir : pathEnv.split(File.pathSeparator)) {
+            Path candidate = Paths.get(dir, binary);
+            if (Files.isExecutable(candidate)) {
+                return candidate.toString();
+            }
+        }
+        return null;
+    }
+
+    private static boolean isExecutable(String path) {
+        return path != null && !path.isEmpty() && Files.isExecutable(Paths.get(path));
+    }
+
+    private static Path cacheFile() {
+        return Config.cacheDir().resolve(CACHE_FILE);
+    }
+
+    private static Properties readCache() {
+        Properties properties = new Properties();
+        Path file = cacheFile();
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                properties.load(in);
+            } catch (IOException e) {
+                Log.warn("Ignoring unreadable driver cache " + file + ": " + e.getMessage());
+            }
+        }
+        return properties;
+    }
+
+    /** Merges {@code properties} into the cache file under a lock; shard JVMs may resolve at the same time */
+    private static void writeCache(Properties properties) {
+        Path file = cacheFile();
+        try {
+            Files.createDirectories(file.getParent());
+            try (FileChannel lockChannel = FileChannel.open(file.resolveSibling(CACHE_FILE + ".lock"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                // Held until the channel is closed
+                lockChannel.lock();
+                Properties current = readCache();
+                current.putAll(properties);
+                try (OutputStream out = Files.newOutputStream(file)) {
+                    current.store(out, "Resolved chromedriver binary");
+                }
+            }
+        } catch (IOException e) {
+            Log.warn("Could not write driver cache " + file + ": " + e.getMessage());
+        }
+    }
+}
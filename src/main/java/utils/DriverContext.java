@@ -0,0 +1,47 @@
+package utils;
+
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Thread-confined driver ownership. Each test thread binds its own pooled session, so page objects
+ * created on that thread never share a browser with another thread.
+ */
+public final class DriverContext {
+
+    private static final ThreadLocal<WebDriver> CURRENT = new ThreadLocal<>();
+
+    private DriverContext() {
+    }
+
+    /** Acquires a session from the pool and binds it to the calling thread */
+    public static WebDriver start() {
+        WebDriver driver = CURRENT.get();
+        if (driver == null) {
+            driver = DriverPool.getInstance().acquire();
+            CURRENT.set(driver);
+        }
+        return driver;
+    }
+
+    public static WebDriver getDriver() {
+        WebDriver driver = CURRENT.get();
+        if (driver == null) {
+            throw new IllegalStateException("No driver bound to thread " + Thread.currentThread().getName()
+                    + ". Call DriverContext.start() in @BeforeMethod.");
+        }
+        return driver;
+    }
+
+    public static boolean hasDriver() {
+        return CURRENT.get() != null;
+    }
+
+    /** Returns the calling thread's session to the pool */
+    public static void stop() {
+        WebDriver driver = CURRENT.get();
+        CURRENT.remove();
+        if (driver != null) {
+            DriverPool.getInstance().release(driver);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package utils;
+
+import org.openqa.selenium.SessionNotCreatedException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.chromium.ChromiumDriverLogLevel;
+import org.openqa.selenium.chromium.HasCdp;
+import org.openqa.selenium.remote.Augmenter;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds browser sessions for a {@link BrowserProfile}; the only place ChromeOptions are assembled. Sessions
+ * run on a local chromedriver, or on the Selenium Grid at {@code -Dgrid.url} when it is set.
+ */
+public final class DriverFactory {
+
+    private static final List<String> FONT_URL_PATTERNS = Arrays.asList("*.woff", "*.woff2", "*.ttf", "*.otf", "*.eot");
+
+    private DriverFactory() {
+    }
+
+    public static WebDriver createDriver() {
+        return createDriver(BrowserProfile.current());
+    }
+
+    public static WebDriver createDriver(BrowserProfile profile) {
+        long start = System.nanoTime();
+        String gridUrl = Config.gridUrl();
+        WebDriver driver = gridUrl.isEmpty() ? startLocalChrome(profile) : startOnGrid(gridUrl, profile);
+
+        if (profile.blocksImagesAndFonts() && driver instanceof HasCdp) {
+            Map<String, Object> blocked = new HashMap<>();
+            blocked.put("urls", FONT_URL_PATTERNS);
+            ((HasCdp) driver).executeCdpCommand("Network.enable", new HashMap<>());
+            ((HasCdp) driver).executeCdpCommand("Network.setBlockedURLs", blocked);
+        }
+        if (!profile.isDebugging()) {
+            NetworkFilter.attach(driver);
+        }
+        OverlaySuppressor.attach(driver);
+        if (!profile.hasFixedWindowSize()) {
+            try {
+                driver.manage().window().maximize();
+            } catch (Exception ignored) {
+                // Window already maximized or can't change state
+            }
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        Log.info("Started " + profile.name().toLowerCase() + " browser session" + (gridUrl.isEmpty() ? "" : " on " + gridUrl)
+                + " in " + elapsedMillis + " ms");
+        return driver;
+    }
+
+    private static ChromeDriver startLocalChrome(BrowserProfile profile) {
+        ChromeDriver driver;
+        try {
+            driver = startChrome(profile);
+        } catch (SessionNotCreatedException e) {
+            if (Config.isDriverOffline()) {
+                throw e;
+            }
+            // Usually a Chrome upgrade that the cached chromedriver no longer matches
+            Log.warn("Session not created with cached chromedriver, resolving again: " + e.getMessage());
+            DriverBinaryResolver.invalidate();
+            driver = startChrome(profile);
+        }
+        DriverBinaryResolver.recordBrowserVersion(driver.getCapabilities().getBrowserVersion());
+        return driver;
+    }
+
+    /**
+     * Remote session on a Selenium Grid. The Grid picks the chromedriver; the session is augmented so that
+     * the DevTools-based font blocking and {@link NetworkFilter} work as they do locally.
+     */
+    private static WebDriver startOnGrid(String gridUrl, BrowserProfile profile) {
+        URL address;
+        try {
+            address = new URL(gridUrl);
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException("Invalid grid.url '" + gridUrl + "'", e);
+        }
+        RemoteWebDriver remote = new RemoteWebDriver(address, buildOptions(profile));
+        return new Augmenter().augment(remote);
+    }
+
+    private static ChromeDriver startChrome(BrowserProfile profile) {
+        ChromeDriverService.Builder service = new ChromeDriverService.Builder()
+                .usingDriverExecutable(new File(DriverBinaryResolver.resolve()));
+        if (profile.isDebugging()) {
+            File logFile = Config.artifactsDir().resolve("chromedriver.log").toFile();
+            logFile.getParentFile().mkdirs();
+            service.withLogLevel(ChromiumDriverLogLevel.ALL).withAppendLog(true).withLogFile(logFile);
+            Log.info("chromedriver log: " + logFile.getAbsolutePath());
+        }
+        return new ChromeDriver(service.build(), buildOptions(profile));
+    }
+
+    static ChromeOptions buildOptions(BrowserProfile profile) {
+        ChromeOptions options = new ChromeOptions();
+        options.addArguments("--disable-notifications");
+        options.addArguments("--disable-popup-blocking");
+        options.addArguments("--disable-blink-features=AutomationControlled");
+        options.addArguments("--disable-extensions");
+        options.addArguments("--no-sandbox");
+        options.addArguments("--disable-dev-shm-usage");
+        options.setPageLoadStrategy(profile.getPageLoadStrategy());
+
+        if (profile.isHeadless()) {
+            options.addArguments("--headless=new");
+            options.addArguments("--disable-gpu");
+        }
+        if (profile.isDebugging()) {
+            options.addArguments("--auto-open-devtools-for-tabs");
+        }
+        if (profile.hasFixedWindowSize()) {
+            options.addArguments("--window-size=" + Config.windowSize());
+        } else {
+            options.addArguments("--start-maximized");
+        }
+
+        Map<String, Object> prefs = new HashMap<>();
+        prefs.put("profile.default_content_setting_values.cookies", 1);
+        prefs.put("profile.cookie_controls_mode", 0);
+        if (profile.blocksImagesAndFonts()) {
+            prefs.put("profile.managed_default_content_settings.images", 2);
+        }
+        options.setExperimentalOption("prefs", prefs);
+
+        return options;
+    }
+}
@@ -0,0 +1,166 @@
+package utils;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.HasCdp;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of warm browser sessions shared by all tests in the JVM.
+ * Sessions are reset (cookies, storage, extra windows) and handed back instead of being quit,
+ * and replacements are launched in the background so a test never waits on a cold start.
+ */
+public final class DriverPool {
+
+    private static final int POOL_SIZE = Config.driverPoolSize();
+    private static final long ACQUIRE_TIMEOUT_SECONDS = 120;
+
+    private static final DriverPool INSTANCE = new DriverPool(POOL_SIZE);
+
+    private final int size;
+    private final BlockingQueue<WebDriver> idle = new LinkedBlockingQueue<>();
+    private final Set<WebDriver> sessions = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger launching = new AtomicInteger();
+    private volatile RuntimeException lastLaunchFailure;
+    private final ExecutorService launcher = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "driver-pool-launcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private DriverPool(int size) {
+        this.size = Math.max(1, size);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "driver-pool-shutdown"));
+        for (int i = 0; i < this.size; i++) {
+            launchInBackground();
+        }
+    }
+
+    public static DriverPool getInstance() {
+        return INSTANCE;
+    }
+
+    /** Takes a warm session from the pool, waiting for a background launch if none is idle yet */
+    public WebDriver acquire() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(ACQUIRE_TIMEOUT_SECONDS);
+
+        while (System.nanoTime() < deadline) {
+            WebDriver driver;
+            try {
+                driver = idle.poll(200, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (driver != null) {
+                return driver;
+            }
+
+            if (launching.get() == 0 && sessions.size() < size) {
+                RuntimeException failure = lastLaunchFailure;
+                if (failure != null) {
+                    lastLaunchFailure = null;
+                    throw new RuntimeException("Could not launch browser session: " + failure.getMessage(), failure);
+                }
+                launchInBackground();
+            }
+        }
+
+        throw new RuntimeException("No browser session became available within " + ACQUIRE_TIMEOUT_SECONDS + "s");
+    }
+
+    /** Resets the session and returns it to the pool; broken sessions are quit and replaced */
+    public void release(WebDriver driver) {
+        if (driver == null) {
+            return;
+        }
+
+        if (reset(driver)) {
+            idle.offer(driver);
+        } else {
+            discard(driver);
+        }
+    }
+
+    /** Quits the session without returning it, e.g. after it has crashed */
+    public void discard(WebDriver driver) {
+        sessions.remove(driver);
+        try {
+            driver.quit();
+        } catch (Exception ignored) {
+        }
+        launchInBackground();
+    }
+
+    private void launchInBackground() {
+        launching.incrementAndGet();
+        launcher.submit(() -> {
+            try {
+                WebDriver driver = DriverFactory.createDriver();
+                sessions.add(driver);
+                idle.offer(driver);
+            } catch (RuntimeException e) {
+                Log.error("Failed to launch browser session: " + e.getMessage());
+                lastLaunchFailure = e;
+            } finally {
+                launching.decrementAndGet();
+            }
+        });
+    }
+
+    /** Clears cookies, storage and extra windows so the next test starts from a clean session */
+    private boolean reset(WebDriver driver) {
+        try {
+            List<String> handles = new ArrayList<>(driver.getWindowHandles());
+            String main = handles.get(0);
+            for (String handle : handles.subList(1, handles.size())) {
+                driver.switchTo().window(handle);
+                driver.close();
+            }
+            driver.switchTo().window(main);
+
+            try {
+                ((JavascriptExecutor) driver).executeScript(
+                    "try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}");
+            } catch (Exception ignored) {
+                // about:blank and similar pages have no storage
+            }
+
+            if (driver instanceof HasCdp) {
+                // Clears cookies for every domain, not just the one currently loaded
+                ((HasCdp) driver).executeCdpCommand("Network.clearBrowserCookies", new HashMap<>());
+            } else {
+                driver.manage().deleteAllCookies();
+            }
+
+            driver.navigate().to("about:blank");
+            return true;
+        } catch (Exception e) {
+            Log.warn("Browser session could not be reset, replacing it: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void shutdown() {
+        launcher.shutdownNow();
+        for (WebDriver driver : sessions) {
+            try {
+                driver.quit();
+            } catch (Exception ignored) {
+            }
+        }
+        sessions.clear();
+        idle.clear();
+    }
+}
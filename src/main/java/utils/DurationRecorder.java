@@ -0,0 +1,45 @@
+package utils;
+
+import org.testng.IExecutionListener;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Feeds the duration of every passed test method into {@link TestDurations} and saves them when TestNG
+ * finishes. Failed tests are left out: they often stop early and would make their class look cheap. The
+ * slowest-tests trend is then logged and written to {@code slowest-tests.txt} in {@link Config#metricsDir()}.
+ */
+public class DurationRecorder implements ITestListener, IExecutionListener {
+
+    private static final int REPORT_SIZE = 10;
+
+    @Override
+    public void onTestSuccess(ITestResult result) {
+        TestDurations.getInstance().record(result.getMethod().getQualifiedName(),
+                result.getEndMillis() - result.getStartMillis());
+    }
+
+    @Override
+    public void onExecutionFinish() {
+        TestDurations durations = TestDurations.getInstance();
+        durations.save();
+
+        String report = durations.trendReport(REPORT_SIZE);
+        if (report.isEmpty()) {
+            return;
+        }
+        Log.info(report);
+        Path dir = Config.metricsDir();
+        try {
+            Files.createDirectories(dir);
+            Files.write(dir.resolve("slowest-tests.txt"), report.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            Log.warn("Could not write slowest-tests report to " + dir + ": " + e.getMessage());
+        }
+    }
+}
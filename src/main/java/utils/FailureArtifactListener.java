@@ -0,0 +1,149 @@
+package utils;
+
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ITestResult;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Collects a screenshot, the page source and the URL of every failed test while its browser is still on the
+ * failing page, then hands them to a single background writer so the test thread can release the driver
+ * straight away. Page source and the test's captured log are gzipped; PNGs are stored as they are. When the
+ * artifact directory grows past {@link Config#artifactsMaxBytes()} the oldest artifacts are deleted, and
+ * when the writer falls behind further failures are logged but not stored.
+ *
+ * <p>The log is read from {@link LogCaptureListener}'s result attribute, so that listener's
+ * {@code afterInvocation} must run first: declare it after this one in testng.xml.
+ */
+public class FailureArtifactListener implements IInvokedMethodListener {
+
+    private static final int QUEUE_CAPACITY = 8;
+
+    private static final ThreadPoolExecutor WRITER = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                Thread thread = new Thread(runnable, "failure-artifacts");
+                thread.setDaemon(true);
+                return thread;
+            }, (task, executor) -> Log.warn("Failure artifact writer is busy, dropping artifacts of a failed test"));
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            WRITER.shutdown();
+            try {
+                WRITER.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "failure-artifacts-flush"));
+    }
+
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (!method.isTestMethod() || testResult.getStatus() != ITestResult.FAILURE || !DriverContext.hasDriver()) {
+            return;
+        }
+
+        WebDriver driver = DriverContext.getDriver();
+        byte[] screenshot = null;
+        String pageSource = null;
+        String url = null;
+        try {
+            url = driver.getCurrentUrl();
+            screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+            pageSource = driver.getPageSource();
+        } catch (Exception e) {
+            Log.warn("Could not capture failure artifacts: " + e.getMessage());
+        }
+
+        String name = testResult.getTestClass().getRealClass().getSimpleName() + "_" + testResult.getName()
+                + "_" + new SimpleDateFormat("yyyyMMdd_HHmmss_SSS").format(new Date());
+        Object log = testResult.getAttribute(LogCaptureListener.RESULT_ATTRIBUTE);
+        String summary = "test: " + testResult.getTestClass().getName() + "." + testResult.getName() + "\n"
+                + "url: " + url + "\n"
+                + "error: " + testResult.getThrowable() + "\n\n"
+                + (log == null ? "" : log);
+
+        byte[] screenshotBytes = screenshot;
+        String source = pageSource;
+        WRITER.execute(() -> write(name, screenshotBytes, source, summary));
+    }
+
+    private static void write(String name, byte[] screenshot, String pageSource, String summary) {
+        Path dir = Config.artifactsDir();
+        try {
+            Files.createDirectories(dir);
+            if (screenshot != null) {
+                Files.write(dir.resolve(name + ".png"), screenshot);
+            }
+            if (pageSource != null) {
+                writeGzip(dir.resolve(name + ".html.gz"), pageSource);
+            }
+            writeGzip(dir.resolve(name + ".txt.gz"), summary);
+            Log.info("Failure artifacts saved: " + dir.resolve(name).toAbsolutePath() + ".*");
+            enforceCap(dir);
+        } catch (IOException e) {
+            Log.warn("Could not write failure artifacts to " + dir + ": " + e.getMessage());
+        }
+    }
+
+    private static void writeGzip(Path file, String content) throws IOException {
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /** Deletes the oldest files until the directory fits in the configured size */
+    private static void enforceCap(Path dir) throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(dir)) {
+            files = listing.filter(Files::isRegularFile).collect(Collectors.toCollection(ArrayList::new));
+        }
+        long total = 0;
+        for (Path file : files) {
+            total += Files.size(file);
+        }
+
+        long cap = Config.artifactsMaxBytes();
+        if (total <= cap) {
+            return;
+        }
+        files.sort(Comparator.comparingLong(FailureArtifactListener::lastModified));
+        int deleted = 0;
+        for (Path file : files) {
+            if (total <= cap) {
+                break;
+            }
+            total -= Files.size(file);
+            Files.deleteIfExists(file);
+            deleted++;
+        }
+        Log.info("Deleted " + deleted + " old failure artifacts to stay under " + cap / (1024 * 1024) + " MB");
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package utils;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+
+/**
+ * Embedded stand-in for the storefront. In {@code replay} mode it serves responses recorded in the fixture
+ * directory and never touches the network; in {@code record} mode it proxies every request to the live site
+ * and stores the responses as fixtures. Absolute links to the live origin are rewritten to the local one.
+ */
+public final class LocalSite {
+
+    private static final List<String> FORWARDED_REQUEST_HEADERS =
+            List.of("Accept", "Accept-Language", "Content-Type", "Cookie", "Referer", "User-Agent", "X-Requested-With");
+
+    private static LocalSite instance;
+
+    private final HttpServer server;
+    private final boolean recording;
+    private final Path fixturesDir;
+    private final String liveOrigin;
+    private final String localOrigin;
+    private final HttpClient upstream;
+
+    private LocalSite(boolean recording) throws IOException {
+        this.recording = recording;
+        this.fixturesDir = Config.siteFixturesDir();
+        this.liveOrigin = stripTrailingSlash(Config.liveSiteUrl());
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", Config.localSitePort()), 0);
+        this.localOrigin = "http://127.0.0.1:" + server.getAddress().getPort();
+        this.upstream = recording
+                ? HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NEVER).connectTimeout(Duration.ofSeconds(15)).build()
+                : null;
+
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "local-site");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(0), "local-site-shutdown"));
+
+        Log.info("Local site " + (recording ? "recording from " + liveOrigin : "replaying") + " at "
+                + localOrigin + " (fixtures: " + fixturesDir.toAbsolutePath() + ")");
+    }
+
+    /** Starts the server on first use; later calls return the running instance */
+    public static synchronized LocalSite start(boolean recording) {
+        if (instance == null) {
+            try {
+                instance = new LocalSite(recording);
+            } catch (IOException e) {
+                throw new RuntimeException("Could not start local site: " + e.getMessage(), e);
+            }
+        }
+        return instance;
+    }
+
+    /** Base URL of the local site, with a trailing slash */
+    public String getBaseUrl() {
+        return localOrigin + "/";
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String pathAndQuery = exchange.getRequestURI().getRawPath()
+                    + (exchange.getRequestURI().getRawQuery() == null ? "" : "?" + exchange.getRequestURI().getRawQuery());
+            String key = exchange.getRequestMethod() + " " + pathAndQuery;
+
+            Fixture fixture = recording ? record(exchange, pathAndQuery, key) : Fixture.load(fixturesDir, key);
+            if (fixture == null) {
+                byte[] body = ("No recorded fixture for " + key + ". Run with -Dsite.mode=record to capture it.")
+                        .getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+                exchange.sendResponseHeaders(404, body.length);
+                exchange.getResponseBody().write(body);
+                return;
+            }
+            serve(exchange, fixture);
+        } catch (Exception e) {
+            if (exchange.getResponseCode() != -1) {
+                // Headers already went out, the client only sees a truncated body
+                Log.warn("Local site failed while sending " + exchange.getRequestURI() + ": " + e.getMessage());
+                return;
+            }
+            byte[] body = ("Local site error: " + e.getMessage()).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(502, body.length);
+            exchange.getResponseBody().write(body);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Fixture record(HttpExchange exchange, String pathAndQuery, String key) throws IOException, InterruptedException {
+        byte[] requestBody;
+        try (InputStream in = exchange.getRequestBody()) {
+            requestBody = in.readAllBytes();
+        }
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(liveOrigin + pathAndQuery))
+                .timeout(Duration.ofSeconds(60))
+                .method(exchange.getRequestMethod(), requestBody.length == 0
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(rewrite(requestBody, localOrigin, liveOrigin)));
+        Headers headers = exchange.getRequestHeaders();
+        for (String name : FORWARDED_REQUEST_HEADERS) {
+            String value = headers.getFirst(name);
+            if (value != null) {
+                request.header(name, new String(rewrite(value.getBytes(StandardCharsets.UTF_8), localOrigin, liveOrigin), StandardCharsets.UTF_8));
+            }
+        }
+
+        HttpResponse<byte[]> response = upstream.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        Fixture fixture = new Fixture(response.statusCode(),
+                response.headers().firstValue("Content-Type").orElse("application/octet-stream"),
+                response.headers().firstValue("Location").orElse(null),
+                response.headers().allValues("Set-Cookie"),
+                response.body());
+        fixture.save(fixturesDir, key);
+        return fixture;
+    }
+
+    private void serve(HttpExchange exchange, Fixture fixture) throws IOException {
+        byte[] body = fixture.isText() ? rewrite(fixture.body, liveOrigin, localOrigin) : fixture.body;
+
+        Headers responseHeaders = exchange.getResponseHeaders();
+        responseHeaders.set("Content-Type", fixture.contentType);
+        if (fixture.location != null) {
+            responseHeaders.set("Location", fixture.location.replace(liveOrigin, localOrigin));
+        }
+        for (String cookie : fixture.cookies) {
+            // Cookies were issued for the live domain and must not carry its Domain/Secure attributes locally
+            responseHeaders.add("Set-Cookie", cookie.replaceAll("(?i);\\s*(domain=[^;]*|secure)", ""));
+        }
+
+        boolean noBody = fixture.status == 204 || fixture.status == 304 || "HEAD".equals(exchange.getRequestMethod());
+        exchange.sendResponseHeaders(fixture.status, noBody ? -1 : body.length);
+        if (!noBody) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    /** Replaces an origin in text content, including the JSON-escaped form used in inline scripts */
+    private static byte[] rewrite(byte[] content, String from, String to) {
+        String text = new String(content, StandardCharsets.UTF_8);
+        if (!text.contains(from) && !text.contains(from.replace("/", "\\/"))) {
+            return content;
+        }
+        return text.replace(from, to)
+                .replace(from.replace("/", "\\/"), to.replace("/", "\\/"))
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    /** One recorded response: status, a few headers and the raw body, stored as {@code <hash>.properties/.body} */
+    private static final class Fixture {
+        private final int status;
+        private final String contentType;
+        private final String location;
+        private final List<String> cookies;
+        private final byte[] body;
+
+        private Fixture(int status, String contentType, String location, List<String> cookies, byte[] body) {
+            this.status = status;
+            this.contentType = contentType;
+            this.location = location;
+            this.cookies = cookies;
+            this.body = body;
+        }
+
+        private boolean isText() {
+            String type = contentType.toLowerCase();
+            return type.startsWith("text/") || type.contains("javascript") || type.contains("json") || type.contains("xml");
+        }
+
+        private static Fixture load(Path dir, String key) throws IOException {
+            String name = fileName(key);
+            Path meta = dir.resolve(name + ".properties");
+            if (!Files.exists(meta)) {
+                return null;
+            }
+            Properties properties = new Properties();
+            try (InputStream in = Files.newInputStream(meta)) {
+                properties.load(in);
+            }
+            String cookies = properties.getProperty("cookies", "");
+            return new Fixture(
+                    Integer.parseInt(properties.getProperty("status", "200")),
+                    properties.getProperty("contentType", "application/octet-stream"),
+                    properties.getProperty("location"),
+                    cookies.isEmpty() ? List.of() : List.of(cookies.split("\n")),
+                    Files.readAllBytes(dir.resolve(name + ".body")));
+        }
+
+        private void save(Path dir, String key) throws IOException {
+            Files.createDirectories(dir);
+            String name = fileName(key);
+            Properties properties = new Properties();
+            properties.setProperty("request", key);
+            properties.setProperty("status", String.valueOf(status));
+            properties.setProperty("contentType", contentType);
+            if (location != null) {
+                properties.setProperty("location", location);
+            }
+            properties.setProperty("cookies", String.join("\n", cookies));
+            Files.write(dir.resolve(name + ".body"), body);
+            try (OutputStream out = Files.newOutputStream(dir.resolve(name + ".properties"))) {
+                properties.store(out, null);
+            }
+        }
+
+        /** Readable prefix from the path plus a hash of the full request line */
+        private static String fileName(String key) {
+            String path = key.substring(key.indexOf(' ') + 1);
+            int query = path.indexOf('?');
+            String readable = (query < 0 ? path : path.substring(0, query)).replaceAll("[^A-Za-z0-9.-]+", "_");
+            if (readable.length() > 60) {
+                readable = readable.substring(readable.length() - 60);
+            }
+            return readable + "-" + sha1(key).substring(0, 12);
+        }
+
+        private static String sha1(String value) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-1").digest(value.getBytes(StandardCharsets.UTF_8));
+                StringBuilder hex = new StringBuilder();
+                for (byte b : digest) {
+                    hex.append(String.format("%02x", b));
+                }
+                return hex.toString();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package utils;
+
+import org.openqa.selenium.By;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Remembers which of several fallback locators worked for a lookup key (e.g. the WOMEN menu) and keeps that
+ * knowledge on disk between runs, so the winning strategy can be probed first instead of waiting out every
+ * failed candidate. Also counts how often the remembered strategy missed and which fallbacks were needed.
+ * Shard JVMs share the file, so every change is merged into it under a lock.
+ */
+public final class LocatorCache {
+
+    private static final String CACHE_FILE = "locators.properties";
+
+    private static final LocatorCache INSTANCE = new LocatorCache();
+
+    private final Properties remembered = new Properties();
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+    private LocatorCache() {
+        Path file = cacheFile();
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                remembered.load(in);
+            } catch (IOException e) {
+                Log.warn("Ignoring unreadable locator cache " + file + ": " + e.getMessage());
+            }
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            String report = report();
+            if (!report.isEmpty()) {
+                Log.info(report);
+            }
+        }, "locator-cache-report"));
+    }
+
+    public static LocatorCache getInstance() {
+        return INSTANCE;
+    }
+
+    /** The candidate that worked last time for this key, or null if none is remembered */
+    public By lookup(String key, By[] candidates) {
+        String winner = remembered.getProperty(key);
+        if (winner == null) {
+            return null;
+        }
+        for (By candidate : candidates) {
+            if (candidate.toString().equals(winner)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /** The remembered candidate was found again on the short probe */
+    public void recordHit(String key) {
+        stats(key).hits.incrementAndGet();
+    }
+
+    /** The remembered candidate failed its probe and the full list had to be tried */
+    public void recordMiss(String key) {
+        stats(key).misses.incrementAndGet();
+    }
+
+    /** A candidate found by walking the full list; it becomes the one probed first next time */
+    public synchronized void recordResolved(String key, int candidateIndex, By candidate) {
+        stats(key).fallbacks.computeIfAbsent(candidateIndex, i -> new AtomicInteger()).incrementAndGet();
+        if (!candidate.toString().equals(remembered.getProperty(key))) {
+            remembered.setProperty(key, candidate.toString());
+            save(key, candidate.toString());
+        }
+    }
+
+    /** One line per key: probe hits, misses and how often each fallback position was needed */
+    public String report() {
+        StringBuilder report = new StringBuilder();
+        new TreeMap<>(stats).forEach((key, s) -> {
+            if (report.length() == 0) {
+                report.append("=== LOCATOR CACHE ===\n");
+            }
+            report.append(key)
+                    .append(": hits=").append(s.hits.get())
+                    .append(", misses=").append(s.misses.get())
+                    .append(", fallbacks by position=").append(new TreeMap<>(s.fallbacks))
+                    .append('\n');
+        });
+        return report.toString();
+    }
+
+    private Stats stats(String key) {
+        return stats.computeIfAbsent(key, k -> new Stats());
+    }
+
+    /** Writes one key's winner into the file, keeping what other JVMs wrote meanwhile */
+    private void save(String key, String winner) {
+        Path file = cacheFile();
+        try {
+            Files.createDirectories(file.getParent());
+            try (FileChannel lockChannel = FileChannel.open(file.resolveSibling(CACHE_FILE + ".lock"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                // Held until the channel is closed
+                lockChannel.lock();
+                Properties current = new Properties();
+                if (Files.exists(file)) {
+                    try (InputStream in = Files.newInputStream(file)) {
+                        current.load(in);
+                    }
+                }
+                current.setProperty(key, winner);
+                try (OutputStream out = Files.newOutputStream(file)) {
+                    current.store(out, "Locator strategies that worked last, by lookup key");
+                }
+            }
+        } catch (IOException e) {
+            Log.warn("Could not write locator cache " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static Path cacheFile() {
+        return Config.cacheDir().resolve(CACHE_FILE);
+    }
+
+    private static final class Stats {
+        private final AtomicInteger hits = new AtomicInteger();
+        private final AtomicInteger misses = new AtomicInteger();
+        private final Map<Integer, AtomicInteger> fallbacks = new ConcurrentHashMap<>();
+    }
+}
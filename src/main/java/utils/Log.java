@@ -0,0 +1,161 @@
+package utils;
+
+import java.io.PrintStream;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Supplier;
+
+/**
+ * Levelled logger for the suite. Callers only pay for building the message and a queue insert; formatting
+ * and writing to the console happen on a background thread, so page-object loops no longer serialise on
+ * {@code System.out}. Lines logged on a thread with an active capture ({@link #startCapture()}) are also
+ * kept for that test, see {@link LogCaptureListener}.
+ *
+ * <p>Build debug-only data lazily, e.g. {@code Log.debug(() -> "Row text: " + row.getText())}, so it is
+ * never fetched from the browser when debug logging is off.
+ */
+public final class Log {
+
+    public enum Level { DEBUG, INFO, WARN, ERROR, OFF }
+
+    private static final Level LEVEL = Config.logLevel();
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss.SSS");
+
+    private static final BlockingQueue<Entry> QUEUE = new ArrayBlockingQueue<>(Config.logQueueSize());
+    private static final ThreadLocal<StringBuilder> CAPTURE = new ThreadLocal<>();
+    private static final PrintStream OUT = System.out;
+
+    private static volatile boolean closed;
+
+    static {
+        Thread writer = new Thread(Log::writeLoop, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            closed = true;
+            drain();
+        }, "log-flush"));
+    }
+
+    private Log() {
+    }
+
+    public static boolean isDebugEnabled() {
+        return LEVEL == Level.DEBUG;
+    }
+
+    public static void debug(String message) {
+        log(Level.DEBUG, message);
+    }
+
+    /** The message is only built when debug logging is on */
+    public static void debug(Supplier<String> message) {
+        if (isDebugEnabled()) {
+            log(Level.DEBUG, message.get());
+        }
+    }
+
+    public static void info(String message) {
+        log(Level.INFO, message);
+    }
+
+    public static void warn(String message) {
+        log(Level.WARN, message);
+    }
+
+    public static void error(String message) {
+        log(Level.ERROR, message);
+    }
+
+    /** Starts keeping the lines this thread logs, replacing any capture already running */
+    public static void startCapture() {
+        CAPTURE.set(new StringBuilder());
+    }
+
+    /** Ends this thread's capture and returns what was logged since {@link #startCapture()} */
+    public static String stopCapture() {
+        StringBuilder captured = CAPTURE.get();
+        CAPTURE.remove();
+        return captured == null ? "" : captured.toString();
+    }
+
+    private static void log(Level level, String message) {
+        if (level.compareTo(LEVEL) < 0) {
+            return;
+        }
+        Entry entry = new Entry(level, LocalTime.now(), Thread.currentThread().getName(), message);
+
+        StringBuilder captured = CAPTURE.get();
+        if (captured != null) {
+            captured.append(entry.format()).append('\n');
+        }
+
+        if (closed) {
+            write(entry);
+            return;
+        }
+        try {
+            QUEUE.put(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            write(entry);
+        }
+    }
+
+    private static void writeLoop() {
+        List<Entry> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(QUEUE.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            QUEUE.drainTo(batch);
+            synchronized (OUT) {
+                for (Entry entry : batch) {
+                    OUT.println(entry.format());
+                }
+                OUT.flush();
+            }
+            batch.clear();
+        }
+    }
+
+    private static void drain() {
+        List<Entry> rest = new ArrayList<>();
+        QUEUE.drainTo(rest);
+        for (Entry entry : rest) {
+            write(entry);
+        }
+        OUT.flush();
+    }
+
+    private static void write(Entry entry) {
+        synchronized (OUT) {
+            OUT.println(entry.format());
+        }
+    }
+
+    private static final class Entry {
+        private final Level level;
+        private final LocalTime time;
+        private final String thread;
+        private final String message;
+
+        private Entry(Level level, LocalTime time, String thread, String message) {
+            this.level = level;
+            this.time = time;
+            this.thread = thread;
+            this.message = message;
+        }
+
+        private String format() {
+            return TIME.format(time) + " " + level + (level.name().length() < 5 ? "  " : " ")
+                    + "[" + thread + "] " + message;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package utils;
+
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ITestResult;
+import org.testng.Reporter;
+
+/**
+ * Captures everything a test method logs through {@link Log}. The text is stored on the test result; for
+ * failed tests it is also added to the TestNG report, so the log of a failure can be read on its own even
+ * when tests run in parallel.
+ */
+public class LogCaptureListener implements IInvokedMethodListener {
+
+    /** Test result attribute holding the captured log text */
+    public static final String RESULT_ATTRIBUTE = "log";
+
+    @Override
+    public void beforeInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (method.isTestMethod()) {
+            Log.startCapture();
+        }
+    }
+
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (!method.isTestMethod()) {
+            return;
+        }
+        String captured = Log.stopCapture();
+        testResult.setAttribute(RESULT_ATTRIBUTE, captured);
+        if (testResult.getStatus() == ITestResult.FAILURE && !captured.isEmpty()) {
+            Reporter.log("<pre>" + captured.replace("&", "&amp;").replace("<", "&lt;") + "</pre>");
+        }
+    }
+}
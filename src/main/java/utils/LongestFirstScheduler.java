@@ -0,0 +1,80 @@
+package utils;
+
+import org.testng.IAlterSuiteListener;
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ITestContext;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Starts the slowest work first so that a long flow does not become the tail of a parallel run. The
+ * {@code <test>} entries of the suite and the methods inside each of them are ordered by their
+ * {@link TestDurations} estimate, longest first; work that never ran counts as the median and ties keep the
+ * testng.xml order. {@code -Dsuite.order=declared} keeps testng.xml order throughout.
+ */
+public class LongestFirstScheduler implements IAlterSuiteListener, IMethodInterceptor {
+
+    @Override
+    public void alter(List<XmlSuite> suites) {
+        if (!Config.isLongestFirst()) {
+            return;
+        }
+        TestDurations durations = TestDurations.getInstance();
+        for (XmlSuite suite : suites) {
+            List<XmlTest> tests = longestFirst(suite.getTests(), test -> {
+                long total = -1;
+                for (XmlClass xmlClass : test.getXmlClasses()) {
+                    long millis = durations.estimateClassMillis(xmlClass.getName());
+                    if (millis >= 0) {
+                        total = Math.max(total, 0) + millis;
+                    }
+                }
+                return total;
+            });
+            suite.setTests(tests);
+            List<String> names = new ArrayList<>();
+            tests.forEach(test -> names.add(test.getName()));
+            Log.debug("Test order, longest first: " + names);
+        }
+    }
+
+    @Override
+    public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+        if (!Config.isLongestFirst()) {
+            return methods;
+        }
+        TestDurations durations = TestDurations.getInstance();
+        return longestFirst(methods, method -> durations.estimateMillis(method.getMethod().getQualifiedName()));
+    }
+
+    /** Stable sort by estimate, descending; unknown estimates (below 0) are replaced by the median */
+    static <T> List<T> longestFirst(List<T> items, ToLongFunction<T> estimate) {
+        Map<T, Long> weights = new IdentityHashMap<>();
+        List<Long> known = new ArrayList<>();
+        for (T item : items) {
+            long millis = estimate.applyAsLong(item);
+            weights.put(item, millis);
+            if (millis >= 0) {
+                known.add(millis);
+            }
+        }
+        known.sort(null);
+        long median = known.isEmpty() ? 0 : known.get(known.size() / 2);
+
+        List<T> ordered = new ArrayList<>(items);
+        ordered.sort(Comparator.comparingLong((T item) -> {
+            long millis = weights.get(item);
+            return millis < 0 ? median : millis;
+        }).reversed());
+        return ordered;
+    }
+}
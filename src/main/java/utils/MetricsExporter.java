@@ -0,0 +1,95 @@
+package utils;
+
+import org.openqa.selenium.json.Json;
+import org.testng.IExecutionListener;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes the {@link ActionMetrics} histograms when TestNG finishes, as {@code actions.json} and as
+ * Prometheus text ({@code actions.prom}) in {@link Config#metricsDir()}. The Prometheus file can be picked
+ * up by a node-exporter textfile collector or pushed to a Pushgateway as is.
+ */
+public class MetricsExporter implements IExecutionListener {
+
+    private static final String METRIC = "page_action_duration_seconds";
+
+    @Override
+    public void onExecutionFinish() {
+        Map<String, ActionMetrics.Snapshot> snapshots = ActionMetrics.getInstance().snapshot();
+        if (snapshots.isEmpty()) {
+            return;
+        }
+
+        Path dir = Config.metricsDir();
+        try {
+            Files.createDirectories(dir);
+            Files.write(dir.resolve("actions.json"), toJson(snapshots).getBytes(StandardCharsets.UTF_8));
+            Files.write(dir.resolve("actions.prom"), toPrometheus(snapshots).getBytes(StandardCharsets.UTF_8));
+            Log.info("Action metrics for " + snapshots.size() + " actions written to " + dir.toAbsolutePath());
+        } catch (IOException e) {
+            Log.warn("Could not write action metrics to " + dir + ": " + e.getMessage());
+        }
+    }
+
+    static String toJson(Map<String, ActionMetrics.Snapshot> snapshots) {
+        Map<String, Object> actions = new LinkedHashMap<>();
+        snapshots.forEach((action, s) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("count", s.getCount());
+            entry.put("totalMs", millis(s.getSumMicros()));
+            entry.put("p50Ms", millis(s.getP50Micros()));
+            entry.put("p95Ms", millis(s.getP95Micros()));
+            entry.put("p99Ms", millis(s.getP99Micros()));
+            entry.put("maxMs", millis(s.getMaxMicros()));
+            actions.put(action, entry);
+        });
+        return new Json().toJson(actions);
+    }
+
+    static String toPrometheus(Map<String, ActionMetrics.Snapshot> snapshots) {
+        StringBuilder out = new StringBuilder();
+        out.append("# HELP ").append(METRIC).append(" Duration of page-object actions, inclusive of nested actions\n");
+        out.append("# TYPE ").append(METRIC).append(" summary\n");
+        snapshots.forEach((action, s) -> {
+            String labels = labels(action);
+            quantile(out, labels, "0.5", s.getP50Micros());
+            quantile(out, labels, "0.95", s.getP95Micros());
+            quantile(out, labels, "0.99", s.getP99Micros());
+            out.append(METRIC).append("_sum{").append(labels).append("} ").append(seconds(s.getSumMicros())).append('\n');
+            out.append(METRIC).append("_count{").append(labels).append("} ").append(s.getCount()).append('\n');
+        });
+        return out.toString();
+    }
+
+    private static void quantile(StringBuilder out, String labels, String quantile, long micros) {
+        out.append(METRIC).append('{').append(labels).append(",quantile=\"").append(quantile).append("\"} ")
+                .append(seconds(micros)).append('\n');
+    }
+
+    /** "HomePage.open" becomes page="HomePage",action="open" */
+    private static String labels(String action) {
+        int dot = action.indexOf('.');
+        String page = dot < 0 ? "" : action.substring(0, dot);
+        String method = dot < 0 ? action : action.substring(dot + 1);
+        return "page=\"" + escape(page) + "\",action=\"" + escape(method) + "\"";
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static double millis(long micros) {
+        return micros / 1_000.0;
+    }
+
+    private static String seconds(long micros) {
+        return String.format(Locale.ROOT, "%.6f", micros / 1_000_000.0);
+    }
+}
@@ -0,0 +1,135 @@
+package utils;
+
+/**
+ * Regex-free money parsing into exact cents. Reads the first amount in a text such as "$1,234.56",
+ * "1.234,56 €" or "Price: 99,-" without allocating intermediate strings.
+ */
+public final class Money {
+
+    private Money() {
+    }
+
+    /**
+     * Parses the first amount in {@code text} into cents. Currency symbols and labels are skipped, '.' and ','
+     * are told apart as decimal or grouping separators by position (a lone separator followed by exactly three
+     * digits, as in "1,234", is grouping), and spaces or apostrophes between digit groups of the integer part
+     * are ignored. A separator right before the first digit, as in "$.99", is the decimal one. The amount ends
+     * at the first character that cannot continue it, such as a space after the decimals or a second decimal
+     * separator. More than two decimals are rounded half-up.
+     *
+     * @throws NumberFormatException if the text contains no digits or the amount does not fit in a long
+     */
+    public static long parseCents(CharSequence text) {
+        if (text == null) {
+            throw new NumberFormatException("No amount in null");
+        }
+
+        int length = text.length();
+        int i = 0;
+        boolean negative = false;
+        boolean leadingDecimal = false;
+        while (i < length && !isDigit(text.charAt(i))) {
+            char c = text.charAt(i);
+            if ((c == '.' || c == ',') && i + 1 < length && isDigit(text.charAt(i + 1))) {
+                // "$.99": a separator before any digit can only be the decimal one
+                leadingDecimal = true;
+                break;
+            } else if (c == '-' || c == '\u2212') {
+                negative = true;
+            } else if (Character.isLetter(c)) {
+                negative = false;
+            }
+            i++;
+        }
+        if (i == length) {
+            throw new NumberFormatException("No amount in '" + text + "'");
+        }
+
+        long digits = 0;
+        int digitsAfterSeparator = 0;
+        char lastSeparator = 0;
+        int lastSeparatorCount = 0;
+        boolean otherSeparatorBefore = false;
+        long wholeBeforeSeparator = 0;
+        if (leadingDecimal) {
+            // Counted as following another separator, so it stays the decimal one and the amount ends at the next
+            lastSeparator = text.charAt(i++);
+            lastSeparatorCount = 1;
+            otherSeparatorBefore = true;
+        }
+
+        for (; i < length; i++) {
+            char c = text.charAt(i);
+            if (isDigit(c)) {
+                if (digits > (Long.MAX_VALUE - 9) / 10) {
+                    throw new NumberFormatException("Amount too large in '" + text + "'");
+                }
+                digits = digits * 10 + (c - '0');
+                digitsAfterSeparator++;
+            } else if ((c == '.' || c == ',') && i + 1 < length && isDigit(text.charAt(i + 1))) {
+                if (lastSeparator != 0 && (otherSeparatorBefore || digitsAfterSeparator != 3)) {
+                    // Only groups of three digits can follow a grouping separator, so the previous separator
+                    // was the decimal one and the amount ended there
+                    break;
+                }
+                if (c == lastSeparator) {
+                    lastSeparatorCount++;
+                } else {
+                    otherSeparatorBefore = lastSeparator != 0;
+                    lastSeparator = c;
+                    lastSeparatorCount = 1;
+                }
+                wholeBeforeSeparator = digits;
+                digitsAfterSeparator = 0;
+            } else if (isGroupingSpace(c) && lastSeparator == 0 && i + 1 < length && isDigit(text.charAt(i + 1))) {
+                // Only in the integer part: "$10.00 2" is 10.00 followed by something else
+                continue;
+            } else {
+                break;
+            }
+        }
+
+        long cents;
+        boolean decimal = lastSeparator != 0 && lastSeparatorCount == 1
+                && (digitsAfterSeparator != 3 || otherSeparatorBefore || wholeBeforeSeparator == 0);
+        if (!decimal) {
+            cents = multiply(digits, 100, text);
+        } else if (digitsAfterSeparator <= 2) {
+            cents = multiply(digits, digitsAfterSeparator == 1 ? 10 : 1, text);
+        } else {
+            long divisor = 1;
+            for (int d = 2; d < digitsAfterSeparator; d++) {
+                divisor *= 10;
+            }
+            cents = digits / divisor + (digits % divisor * 2 >= divisor ? 1 : 0);
+        }
+        return negative ? -cents : cents;
+    }
+
+    /** Cents as a double amount, for display or legacy APIs */
+    public static double toDouble(long cents) {
+        return cents / 100.0;
+    }
+
+    /** Cents formatted as a plain amount with two decimals, e.g. "1234.50" */
+    public static String format(long cents) {
+        long abs = Math.abs(cents);
+        long fraction = abs % 100;
+        return (cents < 0 ? "-" : "") + abs / 100 + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+
+    private static long multiply(long digits, int factor, CharSequence text) {
+        if (digits > Long.MAX_VALUE / factor) {
+            throw new NumberFormatException("Amount too large in '" + text + "'");
+        }
+        return digits * factor;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isGroupingSpace(char c) {
+        return c == ' ' || c == '\u00A0' || c == '\u202F' || c == '\'';
+    }
+}
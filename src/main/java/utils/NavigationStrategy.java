@@ -0,0 +1,25 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * How page objects reach a category page, selected with {@code -Dnav.strategy=<name>}.
+ */
+public enum NavigationStrategy {
+
+    /** Hover the top menu and click "View All", as a shopper would - for tests about the menu itself */
+    MENU,
+
+    /** Open the category URL directly, using URLs discovered from the menu once and kept in {@link CategoryUrlCache} */
+    DIRECT;
+
+    public static NavigationStrategy current() {
+        String name = Config.navigationStrategy();
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown nav.strategy '" + name + "'. Expected one of: "
+                    + Arrays.toString(values()).toLowerCase());
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package utils;
+
+import org.testng.ITestResult;
+import org.testng.Reporter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Navigation and resource timing of one page load, read from {@code window.performance}. Times are in
+ * milliseconds from the start of the navigation; sizes are transferred bytes, which the browser reports as 0
+ * for cache hits and for cross-origin resources that do not send Timing-Allow-Origin.
+ */
+public final class NavigationTiming {
+
+    /** Test result attribute holding the {@code List<NavigationTiming>} of the running test */
+    public static final String RESULT_ATTRIBUTE = "navigationTimings";
+
+    private final String url;
+    private final long ttfbMillis;
+    private final long domContentLoadedMillis;
+    private final long loadMillis;
+    private final long documentBytes;
+    private final Map<String, Long> bytesByType;
+    private final Map<String, Long> countByType;
+
+    private NavigationTiming(String url, long ttfbMillis, long domContentLoadedMillis, long loadMillis,
+                             long documentBytes, Map<String, Long> bytesByType, Map<String, Long> countByType) {
+        this.url = url;
+        this.ttfbMillis = ttfbMillis;
+        this.domContentLoadedMillis = domContentLoadedMillis;
+        this.loadMillis = loadMillis;
+        this.documentBytes = documentBytes;
+        this.bytesByType = Collections.unmodifiableMap(bytesByType);
+        this.countByType = Collections.unmodifiableMap(countByType);
+    }
+
+    /**
+     * Builds a timing from the map returned by the page's timing script: url, ttfb, domContentLoaded, load,
+     * documentBytes and resources as {initiatorType: {count, bytes}}. Missing values are read as -1.
+     */
+    public static NavigationTiming fromScriptResult(Map<?, ?> result) {
+        Map<String, Long> bytesByType = new TreeMap<>();
+        Map<String, Long> countByType = new TreeMap<>();
+        Object resources = result.get("resources");
+        if (resources instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) resources).entrySet()) {
+                Map<?, ?> stats = (Map<?, ?>) entry.getValue();
+                bytesByType.put(String.valueOf(entry.getKey()), toLong(stats.get("bytes")));
+                countByType.put(String.valueOf(entry.getKey()), toLong(stats.get("count")));
+            }
+        }
+        return new NavigationTiming(String.valueOf(result.get("url")), toLong(result.get("ttfb")),
+                toLong(result.get("domContentLoaded")), toLong(result.get("load")),
+                Math.max(0, toLong(result.get("documentBytes"))), bytesByType, countByType);
+    }
+
+    /** Adds the timing to the running test's result and report output; does nothing outside a test */
+    public void attachToCurrentTest() {
+        ITestResult result = Reporter.getCurrentTestResult();
+        if (result == null) {
+            return;
+        }
+        synchronized (result) {
+            @SuppressWarnings("unchecked")
+            List<NavigationTiming> timings = (List<NavigationTiming>) result.getAttribute(RESULT_ATTRIBUTE);
+            if (timings == null) {
+                timings = new ArrayList<>();
+                result.setAttribute(RESULT_ATTRIBUTE, timings);
+            }
+            timings.add(this);
+        }
+        Reporter.log(toString());
+    }
+
+    /** Timings attached to a test result so far, in navigation order */
+    @SuppressWarnings("unchecked")
+    public static List<NavigationTiming> of(ITestResult result) {
+        Object timings = result.getAttribute(RESULT_ATTRIBUTE);
+        return timings == null ? Collections.emptyList() : new ArrayList<>((List<NavigationTiming>) timings);
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    /** Time to first byte of the document */
+    public long getTtfbMillis() {
+        return ttfbMillis;
+    }
+
+    public long getDomContentLoadedMillis() {
+        return domContentLoadedMillis;
+    }
+
+    /** End of the load event, or -1 if the page had not finished loading (e.g. under eager page loads) */
+    public long getLoadMillis() {
+        return loadMillis;
+    }
+
+    /** Bytes transferred for the document itself plus every resource it loaded */
+    public long getTotalBytes() {
+        long total = documentBytes;
+        for (long bytes : bytesByType.values()) {
+            total += bytes;
+        }
+        return total;
+    }
+
+    /** Transferred bytes by resource initiator type (script, img, css, link, xmlhttprequest, ...) */
+    public Map<String, Long> getBytesByType() {
+        return bytesByType;
+    }
+
+    public Map<String, Long> getCountByType() {
+        return countByType;
+    }
+
+    @Override
+    public String toString() {
+        return "NavigationTiming{" + url + ": ttfb=" + ttfbMillis + " ms, domContentLoaded=" + domContentLoadedMillis
+                + " ms, load=" + (loadMillis < 0 ? "n/a" : loadMillis + " ms") + ", bytes=" + getTotalBytes()
+                + " " + bytesByType + "}";
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number ? Math.round(((Number) value).doubleValue()) : -1;
+    }
+}
@@ -0,0 +1,275 @@
+package utils;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps third-party tag-management and analytics traffic away from the browser. Requests matching a deny
+ * pattern are paused by the DevTools Fetch domain and failed as blocked-by-client unless an allow pattern
+ * matches; nothing else is intercepted, so first-party traffic never round-trips through the test JVM.
+ * Page objects are unaware of the filter, they just see pages reach "complete" sooner.
+ *
+ * <p>Blocked requests download nothing, so their size is not known in block mode. An {@code observe} run lets
+ * matching requests through and records their transfer size in {@code .cache/network-sizes.properties};
+ * later block runs use those sizes to estimate the bytes saved.
+ */
+public final class NetworkFilter {
+
+    /** Tag bundles loaded by Tealium iQ and the analytics/ad vendors they pull in */
+    private static final List<String> DEFAULT_DENY = Arrays.asList(
+            "*://tags.tiqcdn.com/utag/*",
+            "*://*.tealiumiq.com/*",
+            "*://*.google-analytics.com/*",
+            "*://*.googletagmanager.com/*",
+            "*://*.doubleclick.net/*",
+            "*://*.googleadservices.com/*",
+            "*://*.facebook.net/*",
+            "*://*.hotjar.com/*");
+
+    /**
+     * The utag loader itself renders the consent prompt that BasePage dismisses. Replay runs block it too:
+     * it is served by the tag CDN, not the recorded storefront, and a replay run must stay off the network.
+     */
+    private static final List<String> DEFAULT_ALLOW = "replay".equals(Config.siteMode())
+            ? Collections.emptyList()
+            : Arrays.asList("*/utag.js*", "*/utag.sync.js*");
+
+    private static final String SIZES_FILE = "network-sizes.properties";
+
+    private static final Event<Map<String, Object>> REQUEST_PAUSED =
+            new Event<>("Fetch.requestPaused", input -> input.read(Json.MAP_TYPE));
+    private static final Event<Map<String, Object>> LOADING_FINISHED =
+            new Event<>("Network.loadingFinished", input -> input.read(Json.MAP_TYPE));
+
+    private static final List<String> DENY = merge(DEFAULT_DENY, Config.networkDenyPatterns());
+    private static final List<Pattern> ALLOW = compile(merge(DEFAULT_ALLOW, Config.networkAllowPatterns()));
+
+    private static final Properties KNOWN_SIZES = loadSizes();
+    private static final Map<String, HostStats> STATS = new ConcurrentHashMap<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if ("observe".equals(Config.networkFilterMode())) {
+                saveSizes();
+            }
+            String report = report();
+            if (!report.isEmpty()) {
+                Log.info(report);
+            }
+        }, "network-filter-report"));
+    }
+
+    private NetworkFilter() {
+    }
+
+    /**
+     * Attaches the filter to a new session. Drivers without DevTools support are left unfiltered; the
+     * filter is an optimisation and must never stop a session from starting.
+     */
+    public static void attach(WebDriver driver) {
+        String mode = Config.networkFilterMode();
+        if ("off".equals(mode) || !(driver instanceof HasDevTools)) {
+            return;
+        }
+        boolean observe = "observe".equals(mode);
+
+        try {
+            DevTools devTools = ((HasDevTools) driver).getDevTools();
+            devTools.createSessionIfThereIsNotOne();
+
+            List<Map<String, Object>> patterns = new ArrayList<>();
+            for (String deny : DENY) {
+                Map<String, Object> pattern = new HashMap<>();
+                pattern.put("urlPattern", deny);
+                pattern.put("requestStage", "Request");
+                patterns.add(pattern);
+            }
+
+            Map<String, String> pendingSizes = new ConcurrentHashMap<>();
+            if (observe) {
+                devTools.send(new Command<>("Network.enable", new HashMap<>()));
+                devTools.addListener(LOADING_FINISHED, event -> {
+                    String key = pendingSizes.remove(String.valueOf(event.get("requestId")));
+                    if (key != null) {
+                        long bytes = ((Number) event.get("encodedDataLength")).longValue();
+                        KNOWN_SIZES.setProperty(key, String.valueOf(bytes));
+                        stats(key).record(bytes, true);
+                    }
+                });
+            }
+
+            devTools.addListener(REQUEST_PAUSED, event -> {
+                String requestId = (String) event.get("requestId");
+                String url = (String) ((Map<?, ?>) event.get("request")).get("url");
+                Map<String, Object> params = new HashMap<>();
+                params.put("requestId", requestId);
+
+                if (observe || isAllowed(url)) {
+                    if (observe && !isAllowed(url) && event.get("networkId") != null) {
+                        pendingSizes.put(String.valueOf(event.get("networkId")), sizeKey(url));
+                    }
+                    devTools.send(new Command<>("Fetch.continueRequest", params));
+                } else {
+                    params.put("errorReason", "BlockedByClient");
+                    devTools.send(new Command<>("Fetch.failRequest", params));
+                    String key = sizeKey(url);
+                    String known = KNOWN_SIZES.getProperty(key);
+                    stats(key).record(known == null ? 0 : Long.parseLong(known), known != null);
+                }
+            });
+
+            Map<String, Object> fetch = new HashMap<>();
+            fetch.put("patterns", patterns);
+            devTools.send(new Command<>("Fetch.enable", fetch));
+        } catch (RuntimeException e) {
+            Log.warn("Network filter not attached, continuing unfiltered: " + e.getMessage());
+        }
+    }
+
+    /** One line per host: requests blocked (or observed) and the bytes they account for */
+    public static String report() {
+        StringBuilder report = new StringBuilder();
+        long totalRequests = 0;
+        long totalBytes = 0;
+        long unknownSizes = 0;
+        for (Map.Entry<String, HostStats> entry : new TreeMap<>(STATS).entrySet()) {
+            HostStats s = entry.getValue();
+            totalRequests += s.requests.get();
+            totalBytes += s.bytes.get();
+            unknownSizes += s.requests.get() - s.sized.get();
+            report.append(entry.getKey())
+                    .append(": requests=").append(s.requests.get())
+                    .append(", bytes=").append(s.bytes.get())
+                    .append('\n');
+        }
+        if (totalRequests == 0) {
+            return "";
+        }
+        boolean observe = "observe".equals(Config.networkFilterMode());
+        return "=== NETWORK FILTER (" + (observe ? "observed, not blocked" : "blocked") + ") ===\n"
+                + report
+                + "Total: requests=" + totalRequests + ", bytes" + (observe ? "=" : " saved (estimated)=") + totalBytes
+                + (unknownSizes > 0 ? ", requests without a known size=" + unknownSizes
+                        + " (run once with -Dnetwork.filter=observe to learn them)" : "")
+                + '\n';
+    }
+
+    private static boolean isAllowed(String url) {
+        for (Pattern allow : ALLOW) {
+            if (allow.matcher(url).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static HostStats stats(String sizeKey) {
+        String host;
+        try {
+            host = URI.create(sizeKey).getHost();
+        } catch (IllegalArgumentException e) {
+            host = null;
+        }
+        return STATS.computeIfAbsent(host == null ? sizeKey : host, h -> new HostStats());
+    }
+
+    /** Scheme, host and path of a URL; query strings of beacons change on every request */
+    private static String sizeKey(String url) {
+        int end = url.length();
+        int query = url.indexOf('?');
+        int fragment = url.indexOf('#');
+        if (query >= 0) {
+            end = query;
+        }
+        if (fragment >= 0 && fragment < end) {
+            end = fragment;
+        }
+        return url.substring(0, end);
+    }
+
+    private static List<String> merge(List<String> defaults, List<String> extra) {
+        List<String> merged = new ArrayList<>(defaults);
+        merged.addAll(extra);
+        return merged;
+    }
+
+    /** Same wildcard syntax as the Fetch domain: '*' is any run of characters, '?' a single one */
+    private static List<Pattern> compile(List<String> globs) {
+        List<Pattern> compiled = new ArrayList<>();
+        for (String glob : globs) {
+            StringBuilder regex = new StringBuilder();
+            for (char c : glob.toCharArray()) {
+                if (c == '*') {
+                    regex.append(".*");
+                } else if (c == '?') {
+                    regex.append('.');
+                } else {
+                    regex.append(Pattern.quote(String.valueOf(c)));
+                }
+            }
+            compiled.add(Pattern.compile(regex.toString()));
+        }
+        return compiled;
+    }
+
+    private static Properties loadSizes() {
+        Properties sizes = new Properties();
+        Path file = Config.cacheDir().resolve(SIZES_FILE);
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                sizes.load(in);
+            } catch (IOException e) {
+                Log.warn("Ignoring unreadable network size cache " + file + ": " + e.getMessage());
+            }
+        }
+        return sizes;
+    }
+
+    private static void saveSizes() {
+        Path file = Config.cacheDir().resolve(SIZES_FILE);
+        try {
+            Files.createDirectories(file.getParent());
+            try (OutputStream out = Files.newOutputStream(file)) {
+                KNOWN_SIZES.store(out, "Transfer size in bytes of filtered requests, learned in observe mode");
+            }
+        } catch (IOException e) {
+            Log.warn("Could not write network size cache " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static final class HostStats {
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong sized = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+
+        private void record(long size, boolean known) {
+            requests.incrementAndGet();
+            bytes.addAndGet(size);
+            if (known) {
+                sized.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package utils;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.HasCdp;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Keeps consent, cookie, modal and notice overlays out of every document a session loads. The script is
+ * registered once per session with {@code Page.addScriptToEvaluateOnNewDocument}, so it runs before the
+ * page's own scripts: injected CSS hides the overlays from the first paint and a MutationObserver removes
+ * them, and any added later, from the DOM. Page objects no longer scan for overlays before each action.
+ *
+ * <p>The Tealium privacy prompt is left alone; {@code BasePage.dismissCookieConsent()} answers it. Drivers
+ * without DevTools get the same script with their page-ready check instead, see {@link #isInstalled}.
+ */
+public final class OverlaySuppressor {
+
+    private static final String OVERLAYS =
+            "[class*=\"consent\"],[class*=\"cookie\"],[class*=\"overlay\"],[class*=\"modal\"],[id*=\"notice\"]";
+    /** The privacy prompt and everything in it stay, or there would be no consent to give */
+    private static final String KEEP = ":not(.privacy_prompt):not(.privacy_prompt *)";
+    private static final String SELECTOR = OVERLAYS.replace(",", KEEP + ",") + KEEP;
+
+    /** Idempotent: installs the style and observer in the current document unless it already has them */
+    public static final String SCRIPT =
+            "(function() {" +
+            "  if (window.__overlaySuppressor) { return; }" +
+            "  window.__overlaySuppressor = true;" +
+            "  var selector = '" + SELECTOR.replace("'", "\\'") + "';" +
+            "  var style = document.createElement('style');" +
+            "  style.textContent = selector + '{display:none !important}' + 'body{overflow:auto !important}';" +
+            "  var sweep = function(root) {" +
+            "    if (root.matches && root.matches(selector)) { root.remove(); return; }" +
+            "    if (root.querySelectorAll) { root.querySelectorAll(selector).forEach(function(e) { e.remove(); }); }" +
+            "  };" +
+            "  var start = function() {" +
+            "    (document.head || document.documentElement).appendChild(style);" +
+            "    sweep(document);" +
+            "    new MutationObserver(function(records) {" +
+            "      for (var i = 0; i < records.length; i++) {" +
+            "        var added = records[i].addedNodes;" +
+            "        for (var j = 0; j < added.length; j++) {" +
+            "          if (added[j].nodeType === 1 && added[j].isConnected) { sweep(added[j]); }" +
+            "        }" +
+            "      }" +
+            "    }).observe(document.documentElement, {childList: true, subtree: true});" +
+            "  };" +
+            "  if (document.documentElement) { start(); }" +
+            "  else { new MutationObserver(function(r, o) { if (document.documentElement) { o.disconnect(); start(); } })" +
+            "      .observe(document, {childList: true}); }" +
+            "})();";
+
+    private static final Set<WebDriver> INSTALLED = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    private OverlaySuppressor() {
+    }
+
+    /**
+     * Registers the script for every new document of the session. Returns false, leaving the session to the
+     * page-ready fallback, when the driver has no DevTools; suppression must never stop a session from starting.
+     */
+    public static boolean attach(WebDriver driver) {
+        if (!(driver instanceof HasCdp)) {
+            return false;
+        }
+        try {
+            Map<String, Object> params = new HashMap<>();
+            params.put("source", SCRIPT);
+            ((HasCdp) driver).executeCdpCommand("Page.addScriptToEvaluateOnNewDocument", params);
+            INSTALLED.add(driver);
+            return true;
+        } catch (RuntimeException e) {
+            Log.warn("Overlay suppression not registered, installing it per page instead: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /** Whether new documents of this session get the script on their own; if not, page objects inject {@link #SCRIPT} */
+    public static boolean isInstalled(WebDriver driver) {
+        return INSTALLED.contains(driver);
+    }
+}
@@ -0,0 +1,33 @@
+package utils;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Limits for the pages a test navigates to, checked by {@link PerformanceBudgetListener} against the
+ * {@link NavigationTiming}s recorded during the test. Limits left at -1 are not checked.
+ *
+ * <pre>
+ * &#64;PerformanceBudget(page = "women.html", loadMillis = 3000, maxBytes = 2_000_000)
+ * </pre>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Repeatable(PerformanceBudgets.class)
+public @interface PerformanceBudget {
+
+    /** Part of the URL that selects the navigations this budget applies to */
+    String page();
+
+    long ttfbMillis() default -1;
+
+    long domContentLoadedMillis() default -1;
+
+    long loadMillis() default -1;
+
+    /** Bytes transferred for the document and all of its resources */
+    long maxBytes() default -1;
+}
@@ -0,0 +1,72 @@
+package utils;
+
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ITestResult;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fails a passing test when one of its {@link PerformanceBudget}s was exceeded by a page it navigated to.
+ * {@code -Dperf.budgets=warn}, the default unless the site is replayed from fixtures, only logs violations
+ * and {@code off} skips the check.
+ *
+ * <p>The verdict must be set before {@link LogCaptureListener} and {@link FailureArtifactListener} look at
+ * the result, so declare this listener after both in testng.xml (afterInvocation runs in reverse order).
+ */
+public class PerformanceBudgetListener implements IInvokedMethodListener {
+
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (!method.isTestMethod() || testResult.getStatus() != ITestResult.SUCCESS
+                || "off".equals(Config.performanceBudgetMode())) {
+            return;
+        }
+        Method testMethod = method.getTestMethod().getConstructorOrMethod().getMethod();
+        PerformanceBudget[] budgets = testMethod == null ? new PerformanceBudget[0]
+                : testMethod.getAnnotationsByType(PerformanceBudget.class);
+        if (budgets.length == 0) {
+            return;
+        }
+
+        List<NavigationTiming> timings = NavigationTiming.of(testResult);
+        List<String> violations = new ArrayList<>();
+        for (PerformanceBudget budget : budgets) {
+            boolean visited = false;
+            for (NavigationTiming timing : timings) {
+                if (timing.getUrl().contains(budget.page())) {
+                    visited = true;
+                    check(violations, timing, "TTFB", timing.getTtfbMillis(), budget.ttfbMillis(), "ms");
+                    check(violations, timing, "DOMContentLoaded", timing.getDomContentLoadedMillis(),
+                            budget.domContentLoadedMillis(), "ms");
+                    check(violations, timing, "load", timing.getLoadMillis(), budget.loadMillis(), "ms");
+                    check(violations, timing, "transferred", timing.getTotalBytes(), budget.maxBytes(), "bytes");
+                }
+            }
+            if (!visited) {
+                Log.warn("Performance budget for '" + budget.page() + "' not checked, no navigation matched it");
+            }
+        }
+        if (violations.isEmpty()) {
+            return;
+        }
+
+        String message = "Performance budget exceeded: " + String.join("; ", violations);
+        if ("warn".equals(Config.performanceBudgetMode())) {
+            Log.warn(message);
+            return;
+        }
+        testResult.setStatus(ITestResult.FAILURE);
+        testResult.setThrowable(new AssertionError(message));
+    }
+
+    /** A measured value of -1 means the browser did not report it, e.g. load under eager page loads */
+    private static void check(List<String> violations, NavigationTiming timing, String metric,
+                              long actual, long limit, String unit) {
+        if (limit >= 0 && actual >= 0 && actual > limit) {
+            violations.add(timing.getUrl() + " " + metric + " " + actual + " " + unit + " > " + limit + " " + unit);
+        }
+    }
+}
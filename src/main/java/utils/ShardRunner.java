@@ -0,0 +1,275 @@
+package utils;
+
+import org.testng.xml.SuiteXmlParser;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Runs a TestNG suite as {@code shard.count} JVMs side by side, each keeping its share of the test classes
+ * through {@link ShardSelector}, and merges their {@code testng-results.xml} into {@code target/shards}.
+ * With {@code -Dshard.grid=true} a standalone Selenium Grid is started on this machine first and every
+ * shard creates its sessions there; {@code -Dgrid.url} points all shards at an existing Grid instead.
+ *
+ * <p>Started by the {@code shards} Maven profile: {@code mvn -Pshards test -Dshard.count=4}. System
+ * properties given to this JVM are passed on to every shard.
+ */
+public final class ShardRunner {
+
+    private static final Path OUTPUT_DIR = Paths.get("target", "shards");
+    private static final String[] RESULT_COUNTS = {"ignored", "total", "passed", "failed", "skipped"};
+    /** TestNG exit code bits that do not mean failure: 2 = some tests skipped, 8 = no tests ran */
+    private static final int ACCEPTABLE_EXIT_BITS = 2 | 8;
+    /** Properties of the JVM itself, which the shards must choose for themselves */
+    private static final List<String> JVM_PROPERTY_PREFIXES = Arrays.asList(
+            "java.", "jdk.", "sun.", "os.", "user.", "file.", "line.", "path.", "awt.", "native.", "stdout.",
+            "stderr.", "socksNonProxyHosts", "ftp.nonProxyHosts", "http.nonProxyHosts", "shard.", "grid.url",
+            "classworlds.", "maven.", "library.", "jna.", "idea.");
+
+    private ShardRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String suiteFile = args.length > 0 ? args[0] : "testng.xml";
+        int classes = countClasses(suiteFile);
+        int shards = Math.max(1, Math.min(Config.shardCount(), classes));
+        if (shards < Config.shardCount()) {
+            Log.info("Only " + classes + " test classes in " + suiteFile + ", running " + shards + " shards");
+        }
+
+        cleanOutputDir();
+        Process grid = null;
+        String gridUrl = Config.gridUrl();
+        if (gridUrl.isEmpty() && Config.isLocalGrid()) {
+            int port = freePort();
+            grid = startGrid(port, shards * Config.driverPoolSize());
+            gridUrl = "http://localhost:" + port;
+        }
+
+        int exitCode;
+        try {
+            exitCode = runShards(suiteFile, shards, gridUrl);
+        } finally {
+            if (grid != null) {
+                grid.destroy();
+                if (!grid.waitFor(10, TimeUnit.SECONDS)) {
+                    grid.destroyForcibly();
+                }
+            }
+        }
+        System.exit(exitCode);
+    }
+
+    private static int runShards(String suiteFile, int shards, String gridUrl) throws Exception {
+        long start = System.nanoTime();
+        List<Process> processes = new ArrayList<>();
+        for (int i = 0; i < shards; i++) {
+            Path dir = shardDir(i);
+            Files.createDirectories(dir);
+            List<String> command = shardCommand(suiteFile, i, shards, gridUrl, dir);
+            processes.add(new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(dir.resolve("output.log").toFile())
+                    .start());
+        }
+        Log.info("Started " + shards + " shards" + (gridUrl.isEmpty() ? "" : " on " + gridUrl)
+                + ", output in " + OUTPUT_DIR.toAbsolutePath());
+
+        boolean failed = false;
+        for (int i = 0; i < shards; i++) {
+            int code = processes.get(i).waitFor();
+            boolean shardFailed = (code & ~ACCEPTABLE_EXIT_BITS) != 0;
+            failed |= shardFailed;
+            Log.info("Shard " + i + " finished with exit code " + code + (shardFailed ? " (FAILED)" : "")
+                    + ", log: " + shardDir(i).resolve("output.log"));
+        }
+
+        Path merged = mergeResults(shards);
+        Log.info("All shards done in " + TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) + " s"
+                + (merged == null ? "" : ", merged results: " + merged.toAbsolutePath()));
+        return failed ? 1 : 0;
+    }
+
+    private static List<String> shardCommand(String suiteFile, int index, int count, String gridUrl, Path dir) {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (JVM_PROPERTY_PREFIXES.stream().noneMatch(name::startsWith)) {
+                command.add("-D" + name + "=" + System.getProperty(name));
+            }
+        }
+        command.add("-Dshard.index=" + index);
+        command.add("-Dshard.count=" + count);
+        if (!gridUrl.isEmpty()) {
+            command.add("-Dgrid.url=" + gridUrl);
+        }
+        command.add("-Dmetrics.dir=" + Config.metricsDir().resolve("shard-" + index));
+        command.add("org.testng.TestNG");
+        command.add("-d");
+        command.add(dir.resolve("testng").toString());
+        command.add(suiteFile);
+        return command;
+    }
+
+    /**
+     * Standalone Grid (hub and node in one process) from the selenium-grid jar on the class path, which the
+     * {@code shards} profile adds. Returns once the Grid reports itself ready.
+     */
+    private static Process startGrid(int port, int maxSessions) throws Exception {
+        try {
+            Class.forName("org.openqa.selenium.grid.Main");
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("selenium-grid is not on the class path; run through 'mvn -Pshards'", e);
+        }
+        Path log = OUTPUT_DIR.resolve("grid.log");
+        Process grid = new ProcessBuilder(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                "org.openqa.selenium.grid.Main", "standalone",
+                "--port", String.valueOf(port),
+                "--max-sessions", String.valueOf(maxSessions),
+                "--override-max-sessions", "true")
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+
+        URL status = new URL("http://localhost:" + port + "/status");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (System.nanoTime() < deadline) {
+            if (!grid.isAlive()) {
+                throw new IllegalStateException("Selenium Grid exited with code " + grid.exitValue() + ", see " + log);
+            }
+            if (isReady(status)) {
+                Log.info("Selenium Grid ready on port " + port + " with " + maxSessions + " session slots");
+                return grid;
+            }
+            Thread.sleep(250);
+        }
+        grid.destroyForcibly();
+        throw new IllegalStateException("Selenium Grid did not become ready within 60 s, see " + log);
+    }
+
+    private static boolean isReady(URL status) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) status.openConnection();
+            connection.setConnectTimeout(1000);
+            connection.setReadTimeout(1000);
+            try (InputStream in = connection.getInputStream()) {
+                String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                return body.replace(" ", "").contains("\"ready\":true");
+            } finally {
+                connection.disconnect();
+            }
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** Sums the counts of every shard's testng-results.xml and collects their suites into one file */
+    private static Path mergeResults(int shards) throws Exception {
+        DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        Document merged = builder.newDocument();
+        Element root = merged.createElement("testng-results");
+        merged.appendChild(root);
+        long[] counts = new long[RESULT_COUNTS.length];
+
+        int found = 0;
+        for (int i = 0; i < shards; i++) {
+            Path results = shardDir(i).resolve("testng").resolve("testng-results.xml");
+            if (!Files.exists(results)) {
+                Log.warn("Shard " + i + " wrote no " + results);
+                continue;
+            }
+            found++;
+            Element shardRoot = builder.parse(results.toFile()).getDocumentElement();
+            for (int c = 0; c < RESULT_COUNTS.length; c++) {
+                String value = shardRoot.getAttribute(RESULT_COUNTS[c]);
+                counts[c] += value.isEmpty() ? 0 : Long.parseLong(value);
+            }
+            NodeList children = shardRoot.getChildNodes();
+            for (int n = 0; n < children.getLength(); n++) {
+                Node child = children.item(n);
+                if (child.getNodeType() == Node.ELEMENT_NODE) {
+                    root.appendChild(merged.importNode(child, true));
+                }
+            }
+        }
+        if (found == 0) {
+            return null;
+        }
+        StringBuilder summary = new StringBuilder();
+        for (int c = 0; c < RESULT_COUNTS.length; c++) {
+            root.setAttribute(RESULT_COUNTS[c], String.valueOf(counts[c]));
+            summary.append(c == 0 ? "" : ", ").append(RESULT_COUNTS[c]).append('=').append(counts[c]);
+        }
+        Log.info("Merged results of " + found + " shards: " + summary);
+
+        Path file = OUTPUT_DIR.resolve("testng-results.xml");
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+        transformer.transform(new DOMSource(merged), new StreamResult(file.toFile()));
+        return file;
+    }
+
+    private static int countClasses(String suiteFile) throws IOException {
+        XmlSuite suite;
+        try (InputStream in = Files.newInputStream(Paths.get(suiteFile))) {
+            suite = new SuiteXmlParser().parse(suiteFile, in, false);
+        }
+        int classes = 0;
+        for (XmlTest test : suite.getTests()) {
+            classes += test.getXmlClasses().size();
+        }
+        return classes;
+    }
+
+    /** Removes the output of the previous sharded run so stale shard results are never merged */
+    private static void cleanOutputDir() throws IOException {
+        if (Files.exists(OUTPUT_DIR)) {
+            try (Stream<Path> files = Files.walk(OUTPUT_DIR)) {
+                for (Path path : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(path);
+                }
+            }
+        }
+        Files.createDirectories(OUTPUT_DIR);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static Path shardDir(int index) {
+        return OUTPUT_DIR.resolve("shard-" + index);
+    }
+}
@@ -0,0 +1,119 @@
+package utils;
+
+import org.testng.IAlterSuiteListener;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps only this JVM's share of the suite when {@code -Dshard.count} is above 1. Test classes are the unit
+ * of work: they are weighted by their duration in earlier runs ({@link TestDurations}; classes that never
+ * ran count as the median) and dealt out longest first, each to the shard with the least work so far. Every
+ * shard computes the same split from the same history, so {@code shard.index} alone decides what runs here.
+ */
+public class ShardSelector implements IAlterSuiteListener {
+
+    @Override
+    public void alter(List<XmlSuite> suites) {
+        int count = Config.shardCount();
+        int index = Config.shardIndex();
+        if (count <= 1) {
+            return;
+        }
+        if (index < 0 || index >= count) {
+            throw new IllegalArgumentException("shard.index must be between 0 and " + (count - 1) + ", got " + index);
+        }
+
+        List<Unit> units = new ArrayList<>();
+        for (XmlSuite suite : suites) {
+            for (XmlTest test : suite.getTests()) {
+                for (XmlClass xmlClass : test.getXmlClasses()) {
+                    units.add(new Unit(units.size(), test, xmlClass,
+                            TestDurations.getInstance().estimateClassMillis(xmlClass.getName())));
+                }
+            }
+        }
+        long unknownWeight = medianKnownWeight(units);
+        for (Unit unit : units) {
+            if (unit.weight < 0) {
+                unit.weight = unknownWeight;
+            }
+        }
+
+        long[] load = assign(units, count);
+
+        List<String> kept = new ArrayList<>();
+        Map<XmlTest, List<XmlClass>> keptByTest = new LinkedHashMap<>();
+        for (Unit unit : units) {
+            List<XmlClass> classes = keptByTest.computeIfAbsent(unit.test, t -> new ArrayList<>());
+            if (unit.shard == index) {
+                classes.add(unit.xmlClass);
+                kept.add(unit.xmlClass.getName());
+            }
+        }
+        keptByTest.forEach(XmlTest::setXmlClasses);
+        for (XmlSuite suite : suites) {
+            suite.getTests().removeIf(test -> test.getXmlClasses().isEmpty());
+        }
+
+        Log.info("Shard " + index + " of " + count + ": " + kept.size() + " of " + units.size()
+                + " classes, estimated " + seconds(load[index]) + " (all shards: " + seconds(load) + ") " + kept);
+    }
+
+    /** Longest processing time first: each unit goes to the currently least loaded shard */
+    static long[] assign(List<Unit> units, int shardCount) {
+        List<Unit> byWeight = new ArrayList<>(units);
+        byWeight.sort(Comparator.comparingLong((Unit u) -> u.weight).reversed().thenComparingInt(u -> u.order));
+
+        long[] load = new long[shardCount];
+        for (Unit unit : byWeight) {
+            int lightest = 0;
+            for (int shard = 1; shard < shardCount; shard++) {
+                if (load[shard] < load[lightest]) {
+                    lightest = shard;
+                }
+            }
+            unit.shard = lightest;
+            load[lightest] += unit.weight;
+        }
+        return load;
+    }
+
+    private static long medianKnownWeight(List<Unit> units) {
+        long[] known = units.stream().mapToLong(u -> u.weight).filter(w -> w >= 0).sorted().toArray();
+        // Nothing known yet: equal weights spread the classes evenly by count
+        return known.length == 0 ? 1 : known[known.length / 2];
+    }
+
+    private static String seconds(long millis) {
+        return String.format(Locale.ROOT, "%.1f s", millis / 1000.0);
+    }
+
+    private static String seconds(long[] load) {
+        return Arrays.stream(load).mapToObj(ShardSelector::seconds).collect(Collectors.joining(", "));
+    }
+
+    static final class Unit {
+        private final int order;
+        private final XmlTest test;
+        private final XmlClass xmlClass;
+        private long weight;
+        private int shard;
+
+        Unit(int order, XmlTest test, XmlClass xmlClass, long weight) {
+            this.order = order;
+            this.test = test;
+            this.xmlClass = xmlClass;
+            this.weight = weight;
+        }
+    }
+}
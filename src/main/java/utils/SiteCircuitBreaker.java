@@ -0,0 +1,52 @@
+package utils;
+
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Wires {@link SiteHealth} into the run: probes the storefront when the suite starts and feeds it the outcome
+ * of every test method. Tests call {@link SiteHealth#requireAvailable()} in their setup to be skipped while
+ * the circuit is open.
+ */
+public class SiteCircuitBreaker implements ISuiteListener, IInvokedMethodListener, ITestListener {
+
+    private final AtomicInteger skipped = new AtomicInteger();
+
+    @Override
+    public void onStart(ISuite suite) {
+        SiteHealth.getInstance().checkNow();
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        if (skipped.get() > 0) {
+            Log.warn("Skipped " + skipped.get() + " tests because the storefront was unavailable");
+        }
+    }
+
+    /** Counts skips while the circuit is open, including those TestNG makes after the skipped setup */
+    @Override
+    public void onTestSkipped(ITestResult result) {
+        if (SiteHealth.getInstance().isOpen()) {
+            skipped.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (!method.isTestMethod()) {
+            return;
+        }
+        if (testResult.getStatus() == ITestResult.SUCCESS) {
+            SiteHealth.getInstance().recordSuccess();
+        } else if (testResult.getStatus() == ITestResult.FAILURE) {
+            SiteHealth.getInstance().recordFailure(testResult.getThrowable());
+        }
+    }
+}
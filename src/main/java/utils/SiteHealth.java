@@ -0,0 +1,163 @@
+package utils;
+
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriverException;
+import org.testng.SkipException;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Circuit breaker for the storefront. While the site answers, it stays closed and costs nothing. After
+ * {@link Config#siteBreakerFailures()} consecutive test failures that look like an outage and are confirmed
+ * by a failing HTTP probe, or a failing probe at suite start, it opens: {@link #requireAvailable()} then
+ * skips browser tests straight away instead of letting each of them wait out its consent, menu and page
+ * timeouts. Once {@link Config#siteBreakerRetry()} has passed, the next caller probes again and a healthy
+ * answer closes the circuit.
+ */
+public final class SiteHealth {
+
+    private static final SiteHealth INSTANCE = new SiteHealth();
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile boolean open;
+    private volatile String reason;
+    private volatile long nextProbeNanos;
+
+    private SiteHealth() {
+    }
+
+    public static SiteHealth getInstance() {
+        return INSTANCE;
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Call before starting a browser test. Throws {@link SkipException} with the outage reason while the
+     * circuit is open; re-probes the site first if the retry interval has passed.
+     */
+    public void requireAvailable() {
+        if (!open || !Config.isSiteBreakerEnabled()) {
+            return;
+        }
+        synchronized (this) {
+            if (open && System.nanoTime() >= nextProbeNanos) {
+                String failure = probe();
+                if (failure == null) {
+                    close();
+                    return;
+                }
+                reason = failure;
+                nextProbeNanos = System.nanoTime() + Config.siteBreakerRetry().toNanos();
+            }
+        }
+        if (open) {
+            throw new SkipException("Storefront " + SiteUrls.baseUrl() + " is unavailable (" + reason
+                    + "); next check in " + Math.max(0, TimeUnit.NANOSECONDS.toSeconds(nextProbeNanos - System.nanoTime())) + " s");
+        }
+    }
+
+    /** Probes the site once and opens the circuit straight away if it does not answer, e.g. at suite start */
+    public synchronized void checkNow() {
+        if (!Config.isSiteBreakerEnabled()) {
+            return;
+        }
+        String failure = probe();
+        if (failure == null) {
+            close();
+        } else {
+            open(failure);
+        }
+    }
+
+    /**
+     * A browser test failed. Outage-like errors (timeouts, connection and DNS errors) are confirmed with a probe
+     * and counted; the circuit opens when the count reaches the threshold. Other failures are ignored.
+     */
+    public synchronized void recordFailure(Throwable failure) {
+        if (open || !Config.isSiteBreakerEnabled() || !looksLikeOutage(failure)) {
+            return;
+        }
+        String probeFailure = probe();
+        if (probeFailure == null) {
+            consecutiveFailures.set(0);
+            return;
+        }
+        int failures = consecutiveFailures.incrementAndGet();
+        Log.warn("Storefront probe failed after a test failure (" + failures + "/" + Config.siteBreakerFailures()
+                + "): " + probeFailure);
+        if (failures >= Config.siteBreakerFailures()) {
+            open(probeFailure);
+        }
+    }
+
+    public void recordSuccess() {
+        consecutiveFailures.set(0);
+    }
+
+    /** Timeouts and network errors anywhere in the cause chain; assertion failures are not outages */
+    static boolean looksLikeOutage(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof TimeoutException || t instanceof IOException) {
+                return true;
+            }
+            if (t instanceof WebDriverException && t.getMessage() != null && t.getMessage().contains("net::ERR_")) {
+                return true;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    /** Null if the storefront answered with a non-5xx status in time, else what went wrong */
+    private static String probe() {
+        String url = SiteUrls.baseUrl();
+        int timeout = (int) Config.siteProbeTimeout().toMillis();
+        long start = System.nanoTime();
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setConnectTimeout(timeout);
+            connection.setReadTimeout(timeout);
+            connection.setInstanceFollowRedirects(true);
+            try {
+                int status = connection.getResponseCode();
+                if (status >= 500) {
+                    return "HTTP " + status;
+                }
+                Log.debug("Storefront probe: HTTP " + status + " in "
+                        + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+                return null;
+            } finally {
+                connection.disconnect();
+            }
+        } catch (IOException e) {
+            return e.getClass().getSimpleName() + (e.getMessage() == null ? "" : ": " + e.getMessage());
+        }
+    }
+
+    private void open(String failure) {
+        reason = failure;
+        nextProbeNanos = System.nanoTime() + Config.siteBreakerRetry().toNanos();
+        if (!open) {
+            open = true;
+            Log.error("Storefront " + SiteUrls.baseUrl() + " is unavailable (" + failure
+                    + "). Skipping browser tests, probing again every " + Config.siteBreakerRetry().getSeconds() + " s");
+        }
+    }
+
+    private void close() {
+        consecutiveFailures.set(0);
+        if (open) {
+            open = false;
+            Log.info("Storefront " + SiteUrls.baseUrl() + " is reachable again, resuming browser tests");
+        }
+    }
+}
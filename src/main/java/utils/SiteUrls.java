@@ -0,0 +1,31 @@
+package utils;
+
+/**
+ * Single place where the storefront base URL is decided. {@code -Dsite.mode=live} (default) talks to the
+ * public demo site; {@code replay} and {@code record} point the browser at the embedded {@link LocalSite}.
+ */
+public final class SiteUrls {
+
+    private SiteUrls() {
+    }
+
+    /** Base URL of the storefront for this run, with a trailing slash */
+    public static String baseUrl() {
+        switch (Config.siteMode()) {
+            case "replay":
+                return LocalSite.start(false).getBaseUrl();
+            case "record":
+                return LocalSite.start(true).getBaseUrl();
+            case "live":
+                String url = Config.liveSiteUrl();
+                return url.endsWith("/") ? url : url + "/";
+            default:
+                throw new IllegalArgumentException("Unknown site.mode '" + Config.siteMode() + "'. Expected live, replay or record");
+        }
+    }
+
+    /** Absolute URL for a path relative to the storefront root, e.g. {@code resolve("wishlist/")} */
+    public static String resolve(String path) {
+        return baseUrl() + (path.startsWith("/") ? path.substring(1) : path);
+    }
+}
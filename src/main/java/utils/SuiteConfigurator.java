@@ -0,0 +1,29 @@
+package utils;
+
+import org.testng.IAlterSuiteListener;
+import org.testng.xml.XmlSuite;
+
+import java.util.List;
+
+/**
+ * Applies the parallel settings from {@link Config} to the suite before it starts, e.g.
+ * {@code mvn test -Dsuite.parallel=methods -Dsuite.threads=4}.
+ */
+public class SuiteConfigurator implements IAlterSuiteListener {
+
+    @Override
+    public void alter(List<XmlSuite> suites) {
+        if (!Config.isParallel()) {
+            return;
+        }
+
+        XmlSuite.ParallelMode mode = XmlSuite.ParallelMode.getValidParallel(Config.parallelMode());
+        for (XmlSuite suite : suites) {
+            suite.setParallel(mode);
+            suite.setThreadCount(Config.threadCount());
+            suite.setPreserveOrder(false);
+        }
+
+        Log.info("Running suite in parallel: mode=" + mode + ", threads=" + Config.threadCount());
+    }
+}
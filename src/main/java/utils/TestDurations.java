@@ -0,0 +1,202 @@
+package utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wall-clock history of each test method, kept in {@code .cache/test-durations.properties} as the last
+ * {@value #HISTORY_SIZE} durations in ms, oldest first, keyed by qualified method name. Estimates are a
+ * moving average over that history; {@link ShardSelector} and {@link LongestFirstScheduler} use them, and
+ * {@link #trendReport(int)} shows how the slowest tests develop. Several shard JVMs may finish at the same
+ * time, so {@link #save()} merges this run's measurements into the file under a lock instead of overwriting it.
+ */
+public final class TestDurations {
+
+    private static final String CACHE_FILE = "test-durations.properties";
+    private static final int HISTORY_SIZE = 10;
+    /** Weight of the newest measurement in the moving average */
+    private static final double SMOOTHING = 0.3;
+    private static final String SPARKS = "▁▂▃▄▅▆▇█";
+
+    private static final TestDurations INSTANCE = new TestDurations();
+
+    private volatile Properties history = new Properties();
+    private final Map<String, Long> measured = new ConcurrentHashMap<>();
+
+    private TestDurations() {
+        Path file = cacheFile();
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                history.load(in);
+            } catch (IOException e) {
+                Log.warn("Ignoring unreadable test durations " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    public static TestDurations getInstance() {
+        return INSTANCE;
+    }
+
+    /** Expected duration of a test method from earlier runs, or -1 if it has not run before */
+    public long estimateMillis(String qualifiedMethod) {
+        return movingAverage(history(qualifiedMethod));
+    }
+
+    /** Sum of the estimates of every known method of a test class, or -1 if none is known */
+    public long estimateClassMillis(String className) {
+        String prefix = className + ".";
+        long total = -1;
+        for (String key : history.stringPropertyNames()) {
+            long millis = estimateMillis(key);
+            if (key.startsWith(prefix) && key.indexOf('.', prefix.length()) < 0 && millis >= 0) {
+                total = Math.max(total, 0) + millis;
+            }
+        }
+        return total;
+    }
+
+    /** Recorded durations of a test method in ms, oldest first; empty if it has not run before */
+    public List<Long> history(String qualifiedMethod) {
+        return parse(history.getProperty(qualifiedMethod));
+    }
+
+    public void record(String qualifiedMethod, long millis) {
+        measured.put(qualifiedMethod, millis);
+    }
+
+    /** Appends this run's measurements to the file, keeping what other JVMs wrote meanwhile */
+    public synchronized void save() {
+        if (measured.isEmpty()) {
+            return;
+        }
+        Path file = cacheFile();
+        try {
+            Files.createDirectories(file.getParent());
+            try (FileChannel lockChannel = FileChannel.open(file.resolveSibling(CACHE_FILE + ".lock"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                // Held until the channel is closed
+                lockChannel.lock();
+                Properties current = new Properties();
+                if (Files.exists(file)) {
+                    try (InputStream in = Files.newInputStream(file)) {
+                        current.load(in);
+                    }
+                }
+                measured.forEach((test, millis) -> {
+                    List<Long> samples = new ArrayList<>(parse(current.getProperty(test)));
+                    samples.add(millis);
+                    if (samples.size() > HISTORY_SIZE) {
+                        samples = samples.subList(samples.size() - HISTORY_SIZE, samples.size());
+                    }
+                    current.setProperty(test, join(samples));
+                });
+                try (OutputStream out = Files.newOutputStream(file)) {
+                    current.store(out, "Last " + HISTORY_SIZE + " durations of each test method in ms, oldest first");
+                }
+                history = current;
+            }
+            measured.clear();
+        } catch (IOException e) {
+            Log.warn("Could not write test durations " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * The {@code limit} tests with the highest estimate: latest duration, moving average, change of the latest
+     * run against the average of the runs before it, and the recorded history as a sparkline.
+     */
+    public String trendReport(int limit) {
+        List<String> tests = new ArrayList<>(history.stringPropertyNames());
+        tests.removeIf(test -> history(test).isEmpty());
+        if (tests.isEmpty()) {
+            return "";
+        }
+        tests.sort(Comparator.comparingLong(this::estimateMillis).reversed().thenComparing(Comparator.naturalOrder()));
+
+        StringBuilder report = new StringBuilder("=== SLOWEST TESTS ===\n");
+        report.append(String.format(Locale.ROOT, "%9s %9s %7s  %-10s %s%n", "latest", "average", "trend", "history", "test"));
+        for (String test : tests.subList(0, Math.min(limit, tests.size()))) {
+            List<Long> samples = history(test);
+            long latest = samples.get(samples.size() - 1);
+            report.append(String.format(Locale.ROOT, "%8.1fs %8.1fs %7s  %-10s %s%n",
+                    latest / 1000.0, estimateMillis(test) / 1000.0, trend(samples), sparkline(samples), test));
+        }
+        return report.toString();
+    }
+
+    /** Latest sample against the mean of the earlier ones, e.g. "+12%"; blank with a single sample */
+    private static String trend(List<Long> samples) {
+        if (samples.size() < 2) {
+            return "";
+        }
+        double earlier = samples.subList(0, samples.size() - 1).stream().mapToLong(Long::longValue).average().orElse(0);
+        if (earlier <= 0) {
+            return "";
+        }
+        long percent = Math.round((samples.get(samples.size() - 1) - earlier) * 100 / earlier);
+        return (percent > 0 ? "+" : "") + percent + "%";
+    }
+
+    private static String sparkline(List<Long> samples) {
+        long min = Collections.min(samples);
+        long max = Collections.max(samples);
+        StringBuilder line = new StringBuilder();
+        for (long sample : samples) {
+            int level = max == min ? 0 : (int) ((sample - min) * (SPARKS.length() - 1) / (max - min));
+            line.append(SPARKS.charAt(level));
+        }
+        return line.toString();
+    }
+
+    private static long movingAverage(List<Long> samples) {
+        if (samples.isEmpty()) {
+            return -1;
+        }
+        double average = samples.get(0);
+        for (long sample : samples.subList(1, samples.size())) {
+            average = average * (1 - SMOOTHING) + sample * SMOOTHING;
+        }
+        return Math.round(average);
+    }
+
+    private static List<Long> parse(String value) {
+        if (value == null) {
+            return Collections.emptyList();
+        }
+        List<Long> samples = new ArrayList<>();
+        for (String item : value.split(",")) {
+            try {
+                samples.add(Long.parseLong(item.trim()));
+            } catch (NumberFormatException ignored) {
+                // Hand-edited or truncated entry
+            }
+        }
+        return samples;
+    }
+
+    private static String join(List<Long> samples) {
+        StringBuilder value = new StringBuilder();
+        for (long sample : samples) {
+            value.append(value.length() == 0 ? "" : ",").append(sample);
+        }
+        return value.toString();
+    }
+
+    private static Path cacheFile() {
+        return Config.cacheDir().resolve(CACHE_FILE);
+    }
+}
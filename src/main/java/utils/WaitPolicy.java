@@ -0,0 +1,301 @@
+package utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Timeout and polling interval for every {@link AdaptiveWait}, learned from how long the same wait took
+ * before. Each wait key (the page action it runs in plus what it waits for, see {@link AdaptiveWait}) keeps p50/p99 of its
+ * successful waits per environment in {@code .cache/wait-latencies-<env>.properties}. The timeout is
+ * {@value #TIMEOUT_FACTOR} x p99 and polling p50 / {@value #POLLING_DIVISOR}, both kept within the bounds of
+ * the environment; waits without history use the caller's timeout and the default polling interval.
+ * Percentiles come from successful waits only. Each recent timeout of a key doubles its learned timeout, up to
+ * the caller's timeout, which it gets back outright after {@value #TIMEOUTS_BEFORE_DEFAULT} timeouts. Timeouts
+ * are stored with the percentiles and halve with every run, so a slow day widens the next runs' timeouts too.
+ *
+ * <p>Bounds and fixed values per environment ({@code -Dwait.env}, the site mode by default) come from
+ * {@code wait-policy.properties}; {@code -Dwait.timeout.ms} / {@code -Dwait.polling.ms} override everything.
+ * The values picked are reported when the run ends.
+ */
+public final class WaitPolicy {
+
+    private static final double TIMEOUT_FACTOR = 3.0;
+    private static final int POLLING_DIVISOR = 5;
+    /** Samples this run needs before its own percentiles replace the stored ones */
+    private static final int MIN_RUN_SAMPLES = 20;
+    /** Weight cap of the stored history when merging, so the policy keeps adapting */
+    private static final long MAX_HISTORY_WEIGHT = 200;
+    /** Recent timeouts after which a key's learned timeout is no longer trusted */
+    private static final int TIMEOUTS_BEFORE_DEFAULT = 3;
+
+    private static final WaitPolicy INSTANCE = new WaitPolicy();
+
+    private final String environment = Config.waitEnvironment();
+    private final Properties overrides = new Properties();
+    private final Properties learned = new Properties();
+    private final Map<String, ActionMetrics.Histogram> samples = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> timeouts = new ConcurrentHashMap<>();
+    private final Map<String, Timing> picked = new ConcurrentHashMap<>();
+
+    private WaitPolicy() {
+        load(Config.waitPolicyFile(), overrides);
+        load(learnedFile(), learned);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            save();
+            String report = report();
+            if (!report.isEmpty()) {
+                writeReport(report);
+                Log.info(report);
+            }
+        }, "wait-policy-report"));
+    }
+
+    public static WaitPolicy getInstance() {
+        return INSTANCE;
+    }
+
+    /** Timeout and polling for the next wait under {@code key}; the defaults apply while it has no history */
+    public Timing timingFor(String key, Duration defaultTimeout, Duration defaultPolling) {
+        long minTimeout = setting(key, "timeout.min.ms", 3000);
+        long maxTimeout = setting(key, "timeout.max.ms", 30000);
+        long minPolling = setting(key, "polling.min.ms", 25);
+        long maxPolling = setting(key, "polling.max.ms", 500);
+        long fixedTimeout = forced("wait.timeout.ms", key, "timeout.ms");
+        long fixedPolling = forced("wait.polling.ms", key, "polling.ms");
+
+        long[] stats = stats(key);
+        String source;
+        long timeout;
+        long polling;
+        if (stats == null) {
+            source = "default";
+            timeout = defaultTimeout.toMillis();
+            polling = setting(key, "polling.default.ms", defaultPolling.toMillis());
+        } else {
+            source = "learned from " + stats[2];
+            // Short-by-design waits (probes, "is it gone yet") are never stretched to the general minimum
+            timeout = clamp(Math.round(stats[1] * TIMEOUT_FACTOR), Math.min(minTimeout, defaultTimeout.toMillis()), maxTimeout);
+            polling = clamp(stats[0] / POLLING_DIVISOR, minPolling, maxPolling);
+            long recentTimeouts = stats[3];
+            if (recentTimeouts > 0) {
+                long ceiling = Math.max(timeout, defaultTimeout.toMillis());
+                timeout = recentTimeouts >= TIMEOUTS_BEFORE_DEFAULT ? ceiling
+                        : Math.min(ceiling, timeout << recentTimeouts);
+                source += ", widened after " + recentTimeouts + " timeouts";
+            }
+        }
+        if (fixedTimeout >= 0 || fixedPolling >= 0) {
+            source = "override";
+            timeout = fixedTimeout >= 0 ? fixedTimeout : timeout;
+            polling = fixedPolling >= 0 ? fixedPolling : polling;
+        }
+
+        Timing timing = new Timing(Duration.ofMillis(timeout), Duration.ofMillis(polling), source);
+        picked.put(key, timing);
+        return timing;
+    }
+
+    public void recordSuccess(String key, long millis) {
+        samples.computeIfAbsent(key, k -> new ActionMetrics.Histogram()).record(millis * 1000);
+    }
+
+    public void recordTimeout(String key) {
+        timeouts.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+    }
+
+    /** One line per wait key used in this run: the values picked, where they came from and what happened */
+    public String report() {
+        if (picked.isEmpty()) {
+            return "";
+        }
+        StringBuilder report = new StringBuilder("=== WAIT POLICY (" + environment + ") ===\n");
+        new TreeMap<>(picked).forEach((key, timing) -> {
+            ActionMetrics.Histogram histogram = samples.get(key);
+            ActionMetrics.Snapshot run = histogram == null ? null : histogram.snapshot();
+            AtomicInteger timedOut = timeouts.get(key);
+            report.append(String.format(Locale.ROOT, "%s: timeout=%d ms, polling=%d ms (%s)",
+                    key, timing.getTimeout().toMillis(), timing.getPolling().toMillis(), timing.getSource()));
+            if (run != null) {
+                report.append(String.format(Locale.ROOT, ", this run: %d waits, p50=%d ms, p99=%d ms",
+                        run.getCount(), run.getP50Micros() / 1000, run.getP99Micros() / 1000));
+            }
+            if (timedOut != null) {
+                report.append(", timeouts=").append(timedOut.get());
+            }
+            report.append('\n');
+        });
+        return report.toString();
+    }
+
+    /**
+     * {p50, p99, count, recent timeouts}: percentiles in ms from this run once it has enough samples, else from
+     * earlier runs; timeouts of earlier runs plus this one's. Null while the key has no percentiles at all.
+     */
+    private long[] stats(String key) {
+        long[] stored = parse(learned.getProperty(key));
+        AtomicInteger timedOut = timeouts.get(key);
+        long recentTimeouts = (stored == null ? 0 : stored[3]) + (timedOut == null ? 0 : timedOut.get());
+
+        ActionMetrics.Histogram histogram = samples.get(key);
+        if (histogram != null) {
+            ActionMetrics.Snapshot run = histogram.snapshot();
+            if (run.getCount() >= MIN_RUN_SAMPLES) {
+                return new long[] {run.getP50Micros() / 1000, run.getP99Micros() / 1000, run.getCount(), recentTimeouts};
+            }
+        }
+        if (stored == null) {
+            return null;
+        }
+        stored[3] = recentTimeouts;
+        return stored;
+    }
+
+    /** Per-key setting, then per-environment, e.g. "live.HomePage.open.timeout.max.ms", "live.timeout.max.ms" */
+    private long setting(String key, String name, long defaultValue) {
+        String value = overrides.getProperty(environment + "." + key + "." + name,
+                overrides.getProperty(environment + "." + name));
+        return value == null ? defaultValue : Long.parseLong(value.trim());
+    }
+
+    /** A system property wins over a fixed value in the policy file; -1 if neither is set */
+    private long forced(String property, String key, String name) {
+        String value = System.getProperty(property);
+        if (value == null) {
+            value = overrides.getProperty(environment + "." + key + "." + name,
+                    overrides.getProperty(environment + "." + name));
+        }
+        return value == null ? -1 : Long.parseLong(value.trim());
+    }
+
+    /** Folds this run's percentiles into the learned file, keeping what other JVMs wrote meanwhile */
+    private synchronized void save() {
+        if (samples.isEmpty() && timeouts.isEmpty()) {
+            return;
+        }
+        Path file = learnedFile();
+        try {
+            Files.createDirectories(file.getParent());
+            try (FileChannel lockChannel = FileChannel.open(file.resolveSibling(file.getFileName() + ".lock"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                // Held until the channel is closed
+                lockChannel.lock();
+                Properties current = new Properties();
+                load(file, current);
+                Set<String> keys = new HashSet<>(samples.keySet());
+                keys.addAll(timeouts.keySet());
+                for (String key : keys) {
+                    long[] previous = parse(current.getProperty(key));
+                    ActionMetrics.Histogram histogram = samples.get(key);
+                    if (histogram == null && previous == null) {
+                        // Only timeouts and nothing learned yet: the caller's timeout applies anyway
+                        continue;
+                    }
+                    AtomicInteger timedOut = timeouts.get(key);
+                    long recentTimeouts = (previous == null ? 0 : previous[3] / 2) + (timedOut == null ? 0 : timedOut.get());
+
+                    long p50 = previous == null ? 0 : previous[0];
+                    long p99 = previous == null ? 0 : previous[1];
+                    long count = previous == null ? 0 : Math.min(previous[2], MAX_HISTORY_WEIGHT);
+                    if (histogram != null) {
+                        ActionMetrics.Snapshot run = histogram.snapshot();
+                        long runCount = run.getCount();
+                        p50 = (p50 * count + run.getP50Micros() / 1000 * runCount) / (count + runCount);
+                        p99 = (p99 * count + run.getP99Micros() / 1000 * runCount) / (count + runCount);
+                        count += runCount;
+                    }
+                    current.setProperty(key, p50 + "," + p99 + "," + count + "," + recentTimeouts);
+                }
+                try (OutputStream out = Files.newOutputStream(file)) {
+                    current.store(out, "p50 ms, p99 ms and sample count of successful waits, and recent timeouts, in environment "
+                            + environment);
+                }
+            }
+        } catch (IOException e) {
+            Log.warn("Could not write wait latencies " + file + ": " + e.getMessage());
+        }
+    }
+
+    private void writeReport(String report) {
+        Path dir = Config.metricsDir();
+        try {
+            Files.createDirectories(dir);
+            Files.write(dir.resolve("wait-policy.txt"), report.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            Log.warn("Could not write wait policy report to " + dir + ": " + e.getMessage());
+        }
+    }
+
+    /** "p50,p99,count[,timeouts]" as {p50, p99, count, timeouts}; entries written before timeouts were kept have none */
+    private static long[] parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        String[] parts = value.split(",");
+        try {
+            return new long[] {Long.parseLong(parts[0].trim()), Long.parseLong(parts[1].trim()), Long.parseLong(parts[2].trim()),
+                    parts.length > 3 ? Long.parseLong(parts[3].trim()) : 0};
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static void load(Path file, Properties into) {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            into.load(in);
+        } catch (IOException e) {
+            Log.warn("Ignoring unreadable " + file + ": " + e.getMessage());
+        }
+    }
+
+    private Path learnedFile() {
+        return Config.cacheDir().resolve("wait-latencies-" + environment + ".properties");
+    }
+
+    private static long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /** Timeout and polling interval picked for one wait */
+    public static final class Timing {
+        private final Duration timeout;
+        private final Duration polling;
+        private final String source;
+
+        Timing(Duration timeout, Duration polling, String source) {
+            this.timeout = timeout;
+            this.polling = polling;
+            this.source = source;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public Duration getPolling() {
+            return polling;
+        }
+
+        /** "default", "learned from N" or "override" */
+        public String getSource() {
+            return source;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package utils;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class CssColorTest {
+
+    @DataProvider
+    public Object[][] colours() {
+        return new Object[][] {
+            {"rgb(51, 153, 204)", CssColor.rgb(51, 153, 204)},
+            {"rgba(51, 153, 204, 1)", CssColor.rgb(51, 153, 204)},
+            {"rgba(0, 0, 0, 0.5)", CssColor.rgba(0, 0, 0, 0.5)},
+            {"  RGB(51,153,204)  ", CssColor.rgb(51, 153, 204)},
+            {"rgb(51 153 204)", CssColor.rgb(51, 153, 204)},
+            {"rgb(51 153 204 / 50%)", CssColor.rgba(51, 153, 204, 0.5)},
+            {"rgb(100%, 0%, 50%)", CssColor.rgb(255, 0, 128)},
+            {"rgb(300, -5, 12.6)", CssColor.rgb(255, 0, 13)},
+            {"rgba(1, 2, 3, 2)", CssColor.rgb(1, 2, 3)},
+            {"#3399cc", CssColor.rgb(51, 153, 204)},
+            {"#39C", CssColor.rgb(51, 153, 204)},
+            {"#3399cc80", CssColor.rgba(51, 153, 204, 128 / 255.0)},
+            {"#39c8", CssColor.rgba(51, 153, 204, 136 / 255.0)},
+            {"hsl(0, 100%, 50%)", CssColor.rgb(255, 0, 0)},
+            {"hsl(120deg 100% 25%)", CssColor.rgb(0, 128, 0)},
+            {"hsla(240, 100%, 50%, 0.5)", CssColor.rgba(0, 0, 255, 0.5)},
+            {"hsl(0.5turn, 100%, 50%)", CssColor.rgb(0, 255, 255)},
+            {"hsl(-120, 100%, 50%)", CssColor.rgb(0, 0, 255)},
+            {"steelblue", CssColor.rgb(70, 130, 180)},
+            {"WHITE", CssColor.rgb(255, 255, 255)},
+            {"transparent", CssColor.rgba(0, 0, 0, 0)},
+        };
+    }
+
+    @Test(dataProvider = "colours")
+    public void parsesColour(String value, CssColor expected) {
+        Assert.assertEquals(CssColor.parse(value), expected, value);
+    }
+
+    @DataProvider
+    public Object[][] malformed() {
+        return new Object[][] {
+            {""}, {"   "}, {"notacolour"}, {"#"}, {"#12"}, {"#12345"}, {"#gggggg"},
+            {"rgb"}, {"rgb()"}, {"rgb(1, 2)"}, {"rgb(1, 2, 3"}, {"rgb 1, 2, 3)"}, {"rgb(1, 2, 3, 4, 5)"},
+            {"rgb(,,1,2,3)"}, {"rgb(1,,2,3)"}, {"rgb(1, 2, 3,)"}, {"rgb(1 2, 3)"}, {"rgb(1, 2 3)"},
+            {"rgb(1 2 3 4)"}, {"rgb(1 / 2 3)"}, {"rgb(1, 2, 3 / 4)"}, {"rgb(1 2 3 /)"},
+            {"rgb(1px, 2, 3)"}, {"rgb(., 2, 3)"}, {"rgb(1.2.3, 2, 3)"}, {"rgb(a, b, c)"},
+            {"hsl(10foo, 50%, 50%)"}, {"hsl(10, 50%%, 50%)"},
+        };
+    }
+
+    @Test(dataProvider = "malformed", expectedExceptions = IllegalArgumentException.class)
+    public void rejectsMalformed(String value) {
+        CssColor.parse(value);
+    }
+
+    @Test
+    public void cachesParsedValuesAndFailures() {
+        Assert.assertSame(CssColor.cached("rgb(1, 2, 3)"), CssColor.cached("rgb(1, 2, 3)"));
+        Assert.assertNull(CssColor.cached("rgb(,,1,2,3)"));
+        Assert.assertNull(CssColor.cached(null));
+    }
+
+    @Test
+    public void formatsLikeComputedStyles() {
+        Assert.assertEquals(CssColor.rgb(51, 153, 204).toString(), "rgba(51, 153, 204, 1)");
+        Assert.assertEquals(CssColor.rgba(0, 0, 0, 0.5).toString(), "rgba(0, 0, 0, 0.5)");
+    }
+
+    @Test
+    public void classifiesColours() {
+        CssColor grey = CssColor.parse("rgb(128, 130, 127)");
+        Assert.assertTrue(CssColor.grey(10, 20, 235).test(grey));
+        Assert.assertFalse(CssColor.grey(10, 20, 235).test(CssColor.parse("black")));
+        Assert.assertFalse(CssColor.grey(10, 20, 235).test(CssColor.parse("white")));
+        Assert.assertTrue(CssColor.blueDominant().test(CssColor.parse("#3399cc")));
+        Assert.assertFalse(CssColor.blueDominant().test(grey));
+        Assert.assertTrue(CssColor.near(CssColor.rgb(51, 153, 204), 2).test(CssColor.parse("rgb(52, 152, 205)")));
+        Assert.assertTrue(CssColor.perceptuallyNear(CssColor.rgb(51, 153, 204), 2.3).test(CssColor.parse("#3399cd")));
+        Assert.assertFalse(CssColor.perceptuallyNear(CssColor.rgb(51, 153, 204), 2.3).test(CssColor.parse("red")));
+    }
+}
@@ -0,0 +1,73 @@
+package utils;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class MoneyTest {
+
+    @DataProvider
+    public Object[][] amounts() {
+        return new Object[][] {
+            {"1,234.56", 123456L},
+            {"1.234,56", 123456L},
+            {"1 234,56", 123456L},
+            {"1 234,56 €", 123456L},
+            {"CHF 1'234.50", 123450L},
+            {"$0.99", 99L},
+            {"$.99", 99L},
+            {",5 €", 50L},
+            {"-.25", -25L},
+            {".125", 13L},
+            {"12,345", 1234500L},
+            {"1.234.567", 123456700L},
+            {"1,234,567.89", 123456789L},
+            {"$99", 9900L},
+            {"Price: 99,-", 9900L},
+            {"12.5", 1250L},
+            {"0.125", 13L},
+            {"-$5.00", -500L},
+            {"Regular Price: $140.00 Special Price: $105.00", 14000L},
+        };
+    }
+
+    @Test(dataProvider = "amounts")
+    public void parsesAmount(String text, long cents) {
+        Assert.assertEquals(Money.parseCents(text), cents, text);
+    }
+
+    @DataProvider
+    public Object[][] trailingText() {
+        return new Object[][] {
+            {"$10.00 2", 1000L},
+            {"$10.00 234", 1000L},
+            {"10.00,5", 1000L},
+            {"1,234.56.7", 123456L},
+            {"1,234.567,8", 123457L},
+            {"$5.00 x 2", 500L},
+            {"$.99.5", 99L},
+            {".123,456", 12L},
+        };
+    }
+
+    @Test(dataProvider = "trailingText")
+    public void stopsAtTheEndOfTheAmount(String text, long cents) {
+        Assert.assertEquals(Money.parseCents(text), cents, text);
+    }
+
+    @DataProvider
+    public Object[][] malformed() {
+        return new Object[][] {{null}, {""}, {"$"}, {"Out of stock"}, {"99999999999999999999"}};
+    }
+
+    @Test(dataProvider = "malformed", expectedExceptions = NumberFormatException.class)
+    public void rejectsMalformed(String text) {
+        Money.parseCents(text);
+    }
+
+    @Test
+    public void formatsCents() {
+        Assert.assertEquals(Money.format(123450), "1234.50");
+        Assert.assertEquals(Money.format(-5), "-0.05");
+    }
+}
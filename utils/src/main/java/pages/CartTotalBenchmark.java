@@ -0,0 +1,76 @@
+package pages;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import utils.Money;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cart total calculation: {@link CartLine#totalCents} on parsed lines against the legacy loop that parsed
+ * every price label with a regex and summed doubles. Lives in {@code pages} to build CartLines directly.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CartTotalBenchmark {
+
+    @Param({"3", "30"})
+    private int lineCount;
+
+    private List<CartLine> lines;
+    private String[] priceLabels;
+    private int[] quantities;
+
+    @Setup
+    public void setUp() {
+        lines = new ArrayList<>();
+        priceLabels = new String[lineCount];
+        quantities = new int[lineCount];
+        for (int i = 0; i < lineCount; i++) {
+            long cents = 995 + i * 1_337L;
+            priceLabels[i] = "$" + Money.format(cents);
+            quantities[i] = 1 + i % 4;
+            lines.add(new CartLine(i, null, "Item " + i, cents, quantities[i]));
+        }
+    }
+
+    @Benchmark
+    public long totalCents() {
+        return CartLine.totalCents(lines);
+    }
+
+    @Benchmark
+    public double legacyDoubleTotal() {
+        double total = 0.0;
+        for (int i = 0; i < priceLabels.length; i++) {
+            double price = Double.parseDouble(priceLabels[i].trim().replaceAll("[^0-9.]", ""));
+            total += price * quantities[i];
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long parseAndTotalCents() {
+        long total = 0;
+        for (int i = 0; i < priceLabels.length; i++) {
+            total += Money.parseCents(priceLabels[i]) * quantities[i];
+        }
+        return total;
+    }
+}
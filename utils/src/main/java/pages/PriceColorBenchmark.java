@@ -0,0 +1,62 @@
+package pages;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import utils.CssColor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The sale page's colour predicates over computed-style values as Chrome reports them. {@code isGrey} and
+ * {@code isBlue} hit the {@link utils.CssColor} cache after the first call per value; {@code parse} is the
+ * cost of a cache miss.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PriceColorBenchmark {
+
+    private final String[] colors = {
+        "rgba(160, 160, 160, 1)", "rgb(51, 153, 204)", "rgba(51, 153, 204, 1)", "rgba(0, 0, 0, 1)",
+        "rgb(255, 255, 255)", "rgba(99, 99, 99, 1)", "rgba(194, 0, 0, 1)", "transparent"
+    };
+
+    private final String[] otherSyntaxes = {
+        "#a0a0a0", "#39c", "hsl(200, 60%, 50%)", "rgb(51 153 204 / 50%)", "grey", "steelblue"
+    };
+
+    @Benchmark
+    public void isGrey(Blackhole blackhole) {
+        for (String color : colors) {
+            blackhole.consume(PriceColors.isGrey(color));
+        }
+    }
+
+    @Benchmark
+    public void isBlue(Blackhole blackhole) {
+        for (String color : colors) {
+            blackhole.consume(PriceColors.isBlue(color));
+        }
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) {
+        for (String color : colors) {
+            blackhole.consume(CssColor.parse(color));
+        }
+        for (String color : otherSyntaxes) {
+            blackhole.consume(CssColor.parse(color));
+        }
+    }
+}
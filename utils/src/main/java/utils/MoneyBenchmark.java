@@ -0,0 +1,43 @@
+package utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Price parsing as done by getProductPrice/getItemPrice: {@link Money#parseCents} against the
+ * replaceAll-and-parseDouble code it replaced. Inputs are price labels as the storefront renders them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MoneyBenchmark {
+
+    private final String[] prices = {"$140.00", "$1,250.00", "$95.00", "  $75.50 ", "$9.99", "$510.00", "$1,999.99", "$0.50"};
+
+    @Benchmark
+    public void parseCents(Blackhole blackhole) {
+        for (String price : prices) {
+            blackhole.consume(Money.parseCents(price));
+        }
+    }
+
+    @Benchmark
+    public void legacyRegexParse(Blackhole blackhole) {
+        for (String price : prices) {
+            blackhole.consume(Double.parseDouble(price.trim().replaceAll("[^0-9.]", "")));
+        }
+    }
+}